@@ -0,0 +1,166 @@
+package com.github.todo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.codecs.pojo.Conventions;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.types.ObjectId;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding and mapping of todos to {@link TodoDto} and their Jackson serialization, as done by getAllTodos and export.
+ * <p>
+ * Run with allocation figures (gc.alloc.rate.norm is B/op):
+ * <pre>
+ * mvn -f todo-service/pom.xml install -DskipTests
+ * mvn -f todo-service-benchmarks/pom.xml package
+ * java -jar todo-service-benchmarks/target/benchmarks.jar -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TodoMappingBenchmark {
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	@Param({"10", "100", "10000"})
+	int size;
+
+	private TodoResource.TodoMapper todoMapper;
+
+	private ObjectWriter listWriter;
+
+	private ObjectWriter writer;
+
+	private List<Todo> todos;
+
+	private List<RawBsonDocument> documents;
+
+	private Codec<Todo> todoCodec;
+
+	private final TodoDtoCodec todoDtoCodec = new TodoDtoCodec();
+
+	@Setup
+	public void setup() {
+		todoMapper = Mappers.getMapper(TodoResource.TodoMapper.class);
+		ObjectMapper objectMapper = new ObjectMapper()
+				.registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		listWriter = objectMapper.writerFor(new TypeReference<List<TodoDto>>() {});
+		writer = objectMapper.writerFor(TodoDto.class);
+		Category[] categories = Category.values();
+		Instant now = Instant.now();
+		todos = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Todo todo = new Todo();
+			todo.name = "Todo " + i;
+			todo.personId = "person" + (i % 50);
+			todo.personName = "Person " + (i % 50);
+			todo.done = i % 3 == 0;
+			todo.createdDate = now.minusSeconds(i);
+			todo.plannedEndDate = now.plusSeconds(i);
+			todo.category = categories[i % categories.length];
+			todos.add(todo);
+		}
+		CodecRegistry codecRegistry = CodecRegistries.fromRegistries(MongoClientSettings.getDefaultCodecRegistry(),
+				CodecRegistries.fromProviders(PojoCodecProvider.builder()
+						.automatic(true)
+						.conventions(Conventions.DEFAULT_CONVENTIONS)
+						.build()));
+		todoCodec = codecRegistry.get(Todo.class);
+		documents = new ArrayList<>(size);
+		for (Todo todo : todos) {
+			todo.id = new ObjectId();
+			documents.add(new RawBsonDocument(todo, todoCodec));
+		}
+	}
+
+	/**
+	 * Page mapping of getAllTodos.
+	 */
+	@Benchmark
+	public List<TodoDto> mapList() {
+		return todoMapper.toResource(todos);
+	}
+
+	/**
+	 * Page mapping plus serialization of the response body of getAllTodos.
+	 */
+	@Benchmark
+	public void mapListAndSerialize() throws IOException {
+		listWriter.writeValue(DISCARD, todoMapper.toResource(todos));
+	}
+
+	/**
+	 * Per todo mapping through the generated mapper plus serialization, as export writes each document.
+	 */
+	@Benchmark
+	public void mapEachAndSerialize() throws IOException {
+		for (Todo todo : todos) {
+			writer.writeValue(DISCARD, todoMapper.toResource(todo));
+		}
+	}
+
+	/**
+	 * Read path before {@link TodoDtoCodec}: documents decoded into entities, mapped and serialized.
+	 */
+	@Benchmark
+	public void decodeEntityMapAndSerialize() throws IOException {
+		List<Todo> decoded = new ArrayList<>(documents.size());
+		for (RawBsonDocument document : documents) {
+			decoded.add(todoCodec.decode(new BsonBinaryReader(document.getByteBuffer().asNIO()), DecoderContext.builder().build()));
+		}
+		listWriter.writeValue(DISCARD, todoMapper.toResource(decoded));
+	}
+
+	/**
+	 * Read path of getAllTodos and export: documents decoded straight into DTOs and serialized.
+	 */
+	@Benchmark
+	public void decodeDtoAndSerialize() throws IOException {
+		List<TodoDto> decoded = new ArrayList<>(documents.size());
+		for (RawBsonDocument document : documents) {
+			decoded.add(todoDtoCodec.decode(new BsonBinaryReader(document.getByteBuffer().asNIO()), DecoderContext.builder().build()));
+		}
+		listWriter.writeValue(DISCARD, decoded);
+	}
+}
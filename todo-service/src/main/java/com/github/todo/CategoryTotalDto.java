@@ -0,0 +1,29 @@
+package com.github.todo;
+
+public class CategoryTotalDto {
+	private Category category;
+	private long total;
+
+	CategoryTotalDto() {}
+
+	CategoryTotalDto(Category category, long total) {
+		this.category = category;
+		this.total = total;
+	}
+
+	public Category getCategory() {
+		return category;
+	}
+
+	public void setCategory(Category category) {
+		this.category = category;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+}
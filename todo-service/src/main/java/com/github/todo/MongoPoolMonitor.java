@@ -0,0 +1,176 @@
+package com.github.todo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection pool listener registered by {@link TodoMongoClientProducer}, exports size, checked-out connections,
+ * wait queue length and checkout latency summed over the pools of all servers.
+ * <p>
+ * The driver cannot resize a pool once created, so the pool is opened with min-pool-size..max-pool-size as bounds
+ * and grows on demand and shrinks back through maxConnectionIdleTime. With adaptive mode enabled the observed
+ * checkout waits also drive mongoPoolRecommendedMaxSize, to be used as max-pool-size on the next deployment.
+ */
+@ApplicationScoped
+public class MongoPoolMonitor implements ConnectionPoolListener {
+	private static final Logger log = LoggerFactory.getLogger(MongoPoolMonitor.class);
+
+	private static final ThreadLocal<Long> CHECK_OUT_START = new ThreadLocal<>();
+
+	@ConfigProperty(name = "configuration.mongoPool.adaptive.enabled", defaultValue = "false")
+	boolean adaptive;
+
+	@ConfigProperty(name = "configuration.mongoPool.adaptive.targetWaitMillis", defaultValue = "5")
+	long targetWaitMillis;
+
+	@ConfigProperty(name = "quarkus.mongodb.min-pool-size", defaultValue = "0")
+	int minPoolSize;
+
+	@ConfigProperty(name = "quarkus.mongodb.max-pool-size", defaultValue = "100")
+	int maxPoolSize;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicInteger checkedOut = new AtomicInteger();
+
+	private final AtomicInteger waitQueueSize = new AtomicInteger();
+
+	private final AtomicInteger peakCheckedOut = new AtomicInteger();
+
+	private final LongAdder waitNanos = new LongAdder();
+
+	private final LongAdder waitCount = new LongAdder();
+
+	private volatile int recommendedMaxSize;
+
+	private Timer checkOutTimer;
+
+	private Counter checkOutFailures;
+
+	@PostConstruct
+	void init() {
+		recommendedMaxSize = maxPoolSize;
+		registerGauge("mongoPoolSize", "Number of open connections", size::get);
+		registerGauge("mongoPoolCheckedOut", "Number of connections in use", checkedOut::get);
+		registerGauge("mongoPoolWaitQueueSize", "Number of threads waiting for a connection", waitQueueSize::get);
+		if (adaptive) {
+			registerGauge("mongoPoolRecommendedMaxSize", "max-pool-size suggested by the observed checkout waits", () -> recommendedMaxSize);
+		}
+		checkOutTimer = metricRegistry.timer(Metadata.builder()
+				.withName("mongoPoolCheckOutTime")
+				.withDescription("Time taken to check out a connection")
+				.withType(MetricType.TIMER)
+				.withUnit(MetricUnits.NANOSECONDS)
+				.build());
+		checkOutFailures = metricRegistry.counter(Metadata.builder()
+				.withName("mongoPoolCheckOutFailures")
+				.withDescription("Number of checkouts that failed or timed out")
+				.withType(MetricType.COUNTER)
+				.withUnit(MetricUnits.NONE)
+				.build());
+	}
+
+	@Override
+	public void connectionCreated(ConnectionCreatedEvent event) {
+		size.incrementAndGet();
+	}
+
+	@Override
+	public void connectionClosed(ConnectionClosedEvent event) {
+		size.decrementAndGet();
+	}
+
+	@Override
+	public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+		waitQueueSize.incrementAndGet();
+		CHECK_OUT_START.set(System.nanoTime());
+	}
+
+	@Override
+	public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+		waitQueueSize.decrementAndGet();
+		peakCheckedOut.accumulateAndGet(checkedOut.incrementAndGet(), Math::max);
+		Long start = CHECK_OUT_START.get();
+		if (start != null) {
+			CHECK_OUT_START.remove();
+			long nanos = System.nanoTime() - start;
+			checkOutTimer.update(nanos, TimeUnit.NANOSECONDS);
+			waitNanos.add(nanos);
+			waitCount.increment();
+		}
+	}
+
+	@Override
+	public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+		waitQueueSize.decrementAndGet();
+		CHECK_OUT_START.remove();
+		checkOutFailures.inc();
+	}
+
+	@Override
+	public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+		checkedOut.decrementAndGet();
+	}
+
+	/**
+	 * Doubles the recommendation while the average wait is above target and shrinks it towards the peak usage
+	 * of the last period once waits are gone, always within min-pool-size..max-pool-size.
+	 */
+	@Scheduled(every = "{configuration.mongoPool.adaptive.evaluateEvery}")
+	void evaluate() {
+		if (!adaptive) {
+			return;
+		}
+		long count = waitCount.sumThenReset();
+		long averageWaitMillis = count > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNanos.sumThenReset() / count) : 0;
+		int peak = peakCheckedOut.getAndSet(checkedOut.get());
+		int current = recommendedMaxSize;
+		int recommended = current;
+		if (averageWaitMillis > targetWaitMillis) {
+			recommended = Math.min(maxPoolSize, current * 2);
+		} else if (peak < current / 2) {
+			recommended = Math.max(Math.max(minPoolSize, 1), peak * 2);
+		}
+		if (recommended != current) {
+			recommendedMaxSize = recommended;
+			log.info("Recommended max-pool-size changed from {} to {}: averageWaitMillis={}, peakCheckedOut={}",
+					current, recommended, averageWaitMillis, peak);
+		}
+	}
+
+	private void registerGauge(String name, String description, Gauge<Integer> gauge) {
+		metricRegistry.register(Metadata.builder()
+				.withName(name)
+				.withDescription(description)
+				.withType(MetricType.GAUGE)
+				.withUnit(MetricUnits.NONE)
+				.build(), gauge);
+	}
+}
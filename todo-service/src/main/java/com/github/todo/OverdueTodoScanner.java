@@ -0,0 +1,190 @@
+package com.github.todo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import io.quarkus.scheduler.Scheduled;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Meter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Flags todos that are not done and whose plannedEndDate has passed with overdue: true.
+ * <p>
+ * Each run walks done=false todos by plannedEndDate on the done_1_plannedEndDate_1 index, starting from the persisted
+ * watermark, in batches of configuration.overdue.batchSize flagged by one updateMany each. The watermark is the
+ * plannedEndDate up to which todos are flagged. It is saved after every batch so a restart resumes where the scan
+ * stopped. Todos reopened or created with a plannedEndDate below the watermark are caught by a full pass from the
+ * beginning every configuration.overdue.fullScanEvery. The flag is removed when a todo is marked done.
+ */
+@ApplicationScoped
+public class OverdueTodoScanner {
+	private static final Logger log = LoggerFactory.getLogger(OverdueTodoScanner.class);
+
+	static final String COLLECTION = "todo_scanner_state";
+
+	private static final String STATE_ID = "overdue";
+
+	@ConfigProperty(name = "configuration.overdue.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "configuration.overdue.batchSize", defaultValue = "500")
+	int batchSize;
+
+	@ConfigProperty(name = "configuration.overdue.fullScanEvery", defaultValue = "1h")
+	Duration fullScanEvery;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	private final AtomicBoolean scanning = new AtomicBoolean();
+
+	private volatile long overdueTodos;
+
+	private volatile Instant scannedAt;
+
+	private Meter marked;
+
+	private Timer batchTime;
+
+	@PostConstruct
+	void init() {
+		registerGauge("overdueTodos", "Number of todos not done past their plannedEndDate at the last scan", MetricUnits.NONE,
+				() -> overdueTodos);
+		registerGauge("overdueScannerLag", "Time since the start of the last completed scan, flags may be this stale", MetricUnits.SECONDS,
+				() -> scannedAt != null ? Duration.between(scannedAt, Instant.now()).getSeconds() : -1L);
+		marked = metricRegistry.meter(Metadata.builder()
+				.withName("overdueTodosMarked")
+				.withDescription("Todos flagged as overdue")
+				.withType(MetricType.METERED)
+				.withUnit(MetricUnits.PER_SECOND)
+				.build());
+		batchTime = metricRegistry.timer(Metadata.builder()
+				.withName("overdueScannerBatchTime")
+				.withDescription("Time taken to read and flag one batch of overdue todos")
+				.withType(MetricType.TIMER)
+				.withUnit(MetricUnits.MILLISECONDS)
+				.build());
+	}
+
+	@Scheduled(every = "{configuration.overdue.scanEvery}")
+	void scheduledScan() {
+		if (enabled) {
+			try {
+				scan();
+			} catch (Exception e) {
+				log.warn("Error on method scheduledScan", e);
+			}
+		}
+	}
+
+	/**
+	 * Runs regardless of configuration.overdue.enabled, which only controls the scheduled scans.
+	 *
+	 * @return number of todos flagged, 0 when a scan is already running
+	 */
+	public long scan() {
+		if (!scanning.compareAndSet(false, true)) {
+			return 0;
+		}
+		try {
+			return doScan();
+		} finally {
+			scanning.set(false);
+		}
+	}
+
+	private long doScan() {
+		Instant start = Instant.now();
+		Document state = state().find(Filters.eq("_id", STATE_ID)).first();
+		if (state == null) {
+			state = new Document("_id", STATE_ID).append("watermark", new Date(0));
+		}
+		Date fullScanAt = state.getDate("fullScanAt");
+		if (state.getDate("fullScanStartedAt") == null
+				&& (fullScanAt == null || fullScanAt.toInstant().plus(fullScanEvery).isBefore(start))) {
+			state.append("fullScanStartedAt", Date.from(start)).append("watermark", new Date(0));
+		}
+		MongoCollection<Document> todos = Todo.mongoCollection().withDocumentClass(Document.class);
+		Date upTo = Date.from(start);
+		long total = 0;
+		List<Document> batch;
+		do {
+			long batchStart = System.nanoTime();
+			// gte is enough to resume, todos of the batch already flagged at the watermark no longer match
+			Bson filter = Filters.and(Filters.eq("done", false),
+					Filters.gte("plannedEndDate", state.getDate("watermark")),
+					Filters.lte("plannedEndDate", upTo),
+					Filters.ne("overdue", true));
+			batch = todos.find(filter)
+					.projection(Projections.include("plannedEndDate"))
+					.sort(Sorts.ascending("plannedEndDate"))
+					.limit(batchSize)
+					.into(new ArrayList<>(batchSize));
+			if (!batch.isEmpty()) {
+				List<Object> ids = new ArrayList<>(batch.size());
+				batch.forEach(d -> ids.add(d.get("_id")));
+				long modified = todos.updateMany(Filters.and(Filters.in("_id", ids), Filters.eq("done", false)),
+						Updates.set("overdue", true)).getModifiedCount();
+				total += modified;
+				marked.mark(modified);
+				state.append("watermark", batch.get(batch.size() - 1).getDate("plannedEndDate"));
+				saveState(state);
+			}
+			batchTime.update(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+		} while (batch.size() == batchSize);
+
+		state.append("watermark", upTo).append("scannedAt", upTo);
+		Date fullScanStartedAt = state.getDate("fullScanStartedAt");
+		if (fullScanStartedAt != null) {
+			state.append("fullScanAt", fullScanStartedAt).append("fullScanStartedAt", null);
+		}
+		saveState(state);
+		scannedAt = start;
+		overdueTodos = todos.countDocuments(Filters.and(Filters.eq("done", false), Filters.lte("plannedEndDate", upTo)));
+		log.info("Flagged {} overdue todos in {}ms, fullScan={}", total, Duration.between(start, Instant.now()).toMillis(),
+				fullScanStartedAt != null);
+		return total;
+	}
+
+	private void saveState(Document state) {
+		state().replaceOne(Filters.eq("_id", STATE_ID), state, new ReplaceOptions().upsert(true));
+	}
+
+	private MongoCollection<Document> state() {
+		return Todo.mongoDatabase().getCollection(COLLECTION);
+	}
+
+	private void registerGauge(String name, String description, String unit, Gauge<Long> gauge) {
+		metricRegistry.register(Metadata.builder()
+				.withName(name)
+				.withDescription(description)
+				.withType(MetricType.GAUGE)
+				.withUnit(unit)
+				.build(), gauge);
+	}
+}
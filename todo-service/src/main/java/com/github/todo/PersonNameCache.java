@@ -0,0 +1,103 @@
+package com.github.todo;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process cache of person names keyed by personId, bounded by entry count and expiring after a TTL.
+ * When the service credential configuration.personService.authorization is set, entries are refreshed in background
+ * with it once older than the refresh interval. Otherwise they expire and are reloaded by the next request with its
+ * own authorization header, request tokens are never kept.
+ */
+@ApplicationScoped
+public class PersonNameCache {
+	private static final Logger log = LoggerFactory.getLogger(PersonNameCache.class);
+
+	@ConfigProperty(name = "configuration.personCache.maxSize", defaultValue = "10000")
+	long maxSize;
+
+	@ConfigProperty(name = "configuration.personCache.expireAfterWriteSeconds", defaultValue = "3600")
+	long expireAfterWriteSeconds;
+
+	@ConfigProperty(name = "configuration.personCache.refreshAfterWriteSeconds", defaultValue = "600")
+	long refreshAfterWriteSeconds;
+
+	@ConfigProperty(name = "configuration.personService.authorization")
+	Optional<String> serviceAuthorization;
+
+	@Inject
+	PersonServiceClient personServiceClient;
+
+	Ticker ticker = Ticker.systemTicker();
+
+	private Cache<String, String> cache;
+
+	@PostConstruct
+	void init() {
+		Caffeine<Object, Object> builder = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+				.ticker(ticker)
+				.recordStats();
+		if (serviceAuthorization.isPresent()) {
+			String authorizationHeader = serviceAuthorization.get();
+			cache = builder.refreshAfterWrite(refreshAfterWriteSeconds, TimeUnit.SECONDS)
+					.build((CacheLoader<String, String>) personId -> {
+						log.debug("Refreshing person name for personId: {}", personId);
+						return personServiceClient.getById(personId, authorizationHeader).getName();
+					});
+		} else {
+			cache = builder.build();
+		}
+	}
+
+	public String getIfPresent(String personId) {
+		return cache.getIfPresent(personId);
+	}
+
+	public void put(String personId, String name) {
+		cache.put(personId, name);
+	}
+
+	public void invalidate(String personId) {
+		cache.invalidate(personId);
+	}
+
+	@Gauge(name = "personNameCacheHitCount", unit = MetricUnits.NONE, absolute = true,
+			description = "Number of person name lookups served from cache")
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	@Gauge(name = "personNameCacheMissCount", unit = MetricUnits.NONE, absolute = true,
+			description = "Number of person name lookups not found in cache")
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	@Gauge(name = "personNameCacheEvictionCount", unit = MetricUnits.NONE, absolute = true,
+			description = "Number of person names evicted from cache")
+	public long getEvictionCount() {
+		return cache.stats().evictionCount();
+	}
+
+	@Gauge(name = "personNameCacheSize", unit = MetricUnits.NONE, absolute = true,
+			description = "Approximate number of person names in cache")
+	public long getSize() {
+		return cache.estimatedSize();
+	}
+}
@@ -0,0 +1,110 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Refreshes the personName stored on todos, walking the distinct personIds in batches and rewriting only the todos
+ * whose stored name differs from the current one. Names are resolved through person-service with
+ * configuration.personName.repairAuthorization, or the service credential configuration.personService.authorization
+ * when unset. Without either the repair has no name source and is skipped with a warning. Cached names are dropped
+ * before each batch is resolved, so renames are read from person-service and refresh the cache as well.
+ */
+@ApplicationScoped
+public class PersonNameRepair {
+	private static final Logger log = LoggerFactory.getLogger(PersonNameRepair.class);
+
+	@ConfigProperty(name = "configuration.personName.repairBatchSize", defaultValue = "100")
+	int batchSize;
+
+	@ConfigProperty(name = "configuration.personName.repairAuthorization")
+	Optional<String> repairAuthorization;
+
+	@ConfigProperty(name = "configuration.personService.authorization")
+	Optional<String> serviceAuthorization;
+
+	@Inject
+	PersonNameResolver personNameResolver;
+
+	@Inject
+	PersonNameCache personNameCache;
+
+	@Scheduled(every = "{configuration.personName.repairEvery}")
+	void scheduledRepair() {
+		try {
+			repair();
+		} catch (Exception e) {
+			log.warn("Error on method scheduledRepair", e);
+		}
+	}
+
+	/**
+	 * @return number of todos updated, 0 when no credential is configured
+	 */
+	public long repair() {
+		Optional<String> authorization = repairAuthorization.isPresent() ? repairAuthorization : serviceAuthorization;
+		if (!authorization.isPresent()) {
+			log.warn("Skipping personName repair, neither configuration.personName.repairAuthorization nor "
+					+ "configuration.personService.authorization is set");
+			return 0;
+		}
+		return repair(authorization.get());
+	}
+
+	/**
+	 * @param authorization - header sent to person-service
+	 * @return number of todos updated
+	 */
+	long repair(String authorization) {
+		long start = System.currentTimeMillis();
+		MongoCollection<Todo> collection = Todo.mongoCollection();
+		List<String> batch = new ArrayList<>(batchSize);
+		long updated = 0;
+		for (String personId : collection.distinct("personId", String.class)) {
+			batch.add(personId);
+			if (batch.size() == batchSize) {
+				updated += repair(batch, authorization);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			updated += repair(batch, authorization);
+		}
+		log.info("Repaired personName of {} todos in {}ms", updated, System.currentTimeMillis() - start);
+		return updated;
+	}
+
+	private long repair(List<String> personIds, String authorization) {
+		personIds.forEach(personNameCache::invalidate);
+		Map<String, String> names = personNameResolver.resolve(personIds, authorization);
+		List<WriteModel<Todo>> models = new ArrayList<>();
+		names.forEach((personId, name) -> {
+			if (name != null && !Objects.equals(name, PersonNameResolver.DEFAULT_NAME)) {
+				models.add(new UpdateManyModel<>(Filters.and(Filters.eq("personId", personId), Filters.ne("personName", name)),
+						Updates.combine(Updates.set("personName", name), Updates.inc("version", 1L))));
+			}
+		});
+		if (models.isEmpty()) {
+			return 0;
+		}
+		BulkWriteResult result = Todo.bulkWrite(models);
+		return result.getModifiedCount();
+	}
+}
@@ -0,0 +1,170 @@
+package com.github.todo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves person names for a page of todos, calling person-service once per distinct personId
+ * with a bounded number of concurrent calls and an overall deadline for the whole page.
+ */
+@ApplicationScoped
+public class PersonNameResolver {
+	private static final Logger log = LoggerFactory.getLogger(PersonNameResolver.class);
+
+	static final String DEFAULT_NAME = "mocked-name";
+
+	@ConfigProperty(name = "configuration.personName.parallelism", defaultValue = "8")
+	int parallelism;
+
+	@ConfigProperty(name = "configuration.personName.deadlineMillis", defaultValue = "2000")
+	long deadlineMillis;
+
+	@Inject
+	PersonServiceClient personServiceClient;
+
+	@Inject
+	PersonNameCache personNameCache;
+
+	private ExecutorService executor;
+
+	@PostConstruct
+	void init() {
+		AtomicInteger counter = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r, "person-name-resolver-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	void destroy() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param personIds - personIds of the current page, duplicates are collapsed
+	 * @param authorizationHeader - header forwarded to person-service
+	 * @return personId to person name, {@link #DEFAULT_NAME} for lookups that failed or missed the deadline
+	 */
+	public Map<String, String> resolve(Collection<String> personIds, String authorizationHeader) {
+		Set<String> distinctIds = new LinkedHashSet<>(personIds);
+		distinctIds.remove(null);
+		Map<String, String> names = new HashMap<>(distinctIds.size());
+		Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+		distinctIds.forEach(personId -> {
+			String cachedName = personNameCache.getIfPresent(personId);
+			if (cachedName != null) {
+				names.put(personId, cachedName);
+			} else {
+				futures.put(personId, CompletableFuture.supplyAsync(() -> getPersonName(personId, authorizationHeader), executor));
+			}
+		});
+		if (futures.isEmpty()) {
+			return names;
+		}
+
+		try {
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+					.get(deadlineMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Person name lookup exceeded deadline of {}ms for {} personIds", deadlineMillis, futures.size());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.warn("Error on method resolve", e);
+		}
+
+		futures.forEach((personId, future) -> {
+			if (future.isDone() && !future.isCompletedExceptionally()) {
+				names.put(personId, future.join());
+			} else {
+				future.cancel(true);
+				names.put(personId, DEFAULT_NAME);
+			}
+		});
+		return names;
+	}
+
+	/**
+	 * Non-blocking variant of {@link #resolve(Collection, String)} using {@link ReactivePersonService}.
+	 */
+	public Uni<Map<String, String>> resolveReactive(Collection<String> personIds, String authorizationHeader) {
+		Set<String> distinctIds = new LinkedHashSet<>(personIds);
+		distinctIds.remove(null);
+		Map<String, String> names = new ConcurrentHashMap<>(distinctIds.size());
+		List<String> missingIds = new ArrayList<>();
+		distinctIds.forEach(personId -> {
+			String cachedName = personNameCache.getIfPresent(personId);
+			if (cachedName != null) {
+				names.put(personId, cachedName);
+			} else {
+				missingIds.add(personId);
+			}
+		});
+		if (missingIds.isEmpty()) {
+			return Uni.createFrom().item(names);
+		}
+
+		return Multi.createFrom().iterable(missingIds)
+				.onItem().<String>produceUni(personId -> Uni.createFrom()
+						.completionStage(() -> personServiceClient.getByIdAsync(personId, authorizationHeader))
+						.map(person -> {
+							if (person.getName() != null) {
+								personNameCache.put(personId, person.getName());
+								names.put(personId, person.getName());
+							}
+							return personId;
+						})
+						.onFailure().recoverWithItem(e -> {
+							log.warn("Error on method resolveReactive", e);
+							return personId;
+						}))
+				.merge(parallelism)
+				.collectItems().asList()
+				.ifNoItem().after(Duration.ofMillis(deadlineMillis)).recoverWithItem(Collections.emptyList())
+				.map(resolvedIds -> {
+					Map<String, String> resolvedNames = new HashMap<>(names);
+					missingIds.forEach(personId -> resolvedNames.putIfAbsent(personId, DEFAULT_NAME));
+					return resolvedNames;
+				});
+	}
+
+	private String getPersonName(String personId, String authorizationHeader) {
+		try {
+			log.debug("Searching by personId: {}", personId);
+			String name = personServiceClient.getById(personId, authorizationHeader).getName();
+			personNameCache.put(personId, name);
+			return name;
+		} catch (Exception e) {
+			log.warn("Error on method getPersonName", e);
+			return DEFAULT_NAME;
+		}
+	}
+}
@@ -11,7 +11,7 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 @RegisterRestClient(configKey="person-api")
 public interface PersonService {
     @GET
-    @Path("/{personId}}")
+    @Path("/{personId}")
     @Produces("application/json")
     PersonDto getById(@PathParam("personId") String personId, @HeaderParam("Authorization") String authorizationHeader);
 }
@@ -0,0 +1,92 @@
+package com.github.todo;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.eclipse.microprofile.metrics.annotation.ConcurrentGauge;
+import org.eclipse.microprofile.metrics.annotation.Timed;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+/**
+ * Calls to person-service bounded by a timeout, a bulkhead and a circuit breaker, so a slow person-service cannot
+ * hold more than the bulkhead size of worker threads. Limits can be overridden with the MicroProfile Fault Tolerance
+ * properties, e.g. com.github.todo.PersonServiceClient/getById/Bulkhead/value. The timeouts stay below
+ * configuration.personName.deadlineMillis so a slow call fails on its own before the page deadline gives up on it.
+ */
+@ApplicationScoped
+public class PersonServiceClient {
+	@Inject
+	@RestClient
+	PersonService personService;
+
+	@Inject
+	@RestClient
+	ReactivePersonService reactivePersonService;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	private Timer asyncTimer;
+
+	private org.eclipse.microprofile.metrics.ConcurrentGauge asyncInFlight;
+
+	void onStart(@Observes StartupEvent ev) {
+		asyncTimer = metricRegistry.timer(Metadata.builder()
+				.withName("personServiceGetByIdAsyncTimed")
+				.withDescription("Monitor the time asynchronous calls to person-service take")
+				.withType(MetricType.TIMER)
+				.withUnit(MetricUnits.MILLISECONDS)
+				.build());
+		asyncInFlight = metricRegistry.concurrentGauge(Metadata.builder()
+				.withName("personServiceGetByIdAsyncInFlight")
+				.withDescription("Number of asynchronous calls to person-service in flight")
+				.withType(MetricType.CONCURRENT_GAUGE)
+				.build());
+	}
+
+	@Timeout(1500)
+	@Bulkhead(20)
+	@CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 5000, successThreshold = 2)
+	@Timed(name = "personServiceGetByIdTimed",
+			description = "Monitor the time calls to person-service take",
+			unit = MetricUnits.MILLISECONDS,
+			absolute = true)
+	@ConcurrentGauge(name = "personServiceGetByIdInFlight",
+			description = "Number of calls to person-service in flight",
+			absolute = true)
+	public PersonDto getById(String personId, String authorizationHeader) {
+		return personService.getById(personId, authorizationHeader);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #getById(String, String)}, calls beyond the bulkhead wait in its queue.
+	 * Timed by hand, @Timed and @ConcurrentGauge would only see the call return its CompletionStage.
+	 */
+	@Asynchronous
+	@Timeout(1500)
+	@Bulkhead(value = 20, waitingTaskQueue = 100)
+	@CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 5000, successThreshold = 2)
+	public CompletionStage<PersonDto> getByIdAsync(String personId, String authorizationHeader) {
+		long start = System.nanoTime();
+		asyncInFlight.inc();
+		return reactivePersonService.getById(personId, authorizationHeader)
+				.whenComplete((person, e) -> {
+					asyncInFlight.dec();
+					asyncTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				});
+	}
+}
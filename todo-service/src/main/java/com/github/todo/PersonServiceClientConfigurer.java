@@ -0,0 +1,28 @@
+package com.github.todo;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.eclipse.microprofile.rest.client.spi.RestClientBuilderListener;
+
+/**
+ * Configures the HTTP connection pool of the REST clients, which the mp-rest properties do not cover. The pool is
+ * bounded, pooled connections are kept alive for connectionTTLMillis and a call waits at most
+ * connectionCheckoutTimeoutMillis for a free connection.
+ */
+public class PersonServiceClientConfigurer implements RestClientBuilderListener {
+	@Override
+	public void onNewBuilder(RestClientBuilder builder) {
+		Config config = ConfigProvider.getConfig();
+		int poolSize = config.getOptionalValue("configuration.personService.connectionPoolSize", Integer.class).orElse(20);
+		long ttlMillis = config.getOptionalValue("configuration.personService.connectionTTLMillis", Long.class).orElse(60_000L);
+		long checkoutTimeoutMillis = config.getOptionalValue("configuration.personService.connectionCheckoutTimeoutMillis", Long.class).orElse(500L);
+		builder.property("resteasy.connectionPoolSize", poolSize);
+		builder.property("resteasy.maxPooledPerRoute", poolSize);
+		builder.property("resteasy.connectionTTL", Arrays.asList(ttlMillis, TimeUnit.MILLISECONDS));
+		builder.property("resteasy.connectionCheckoutTimeout", Arrays.asList(checkoutTimeoutMillis, TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,102 @@
+package com.github.todo;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import io.quarkus.mongodb.panache.MongoEntity;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoEntity;
+import io.quarkus.mongodb.reactive.ReactiveMongoCollection;
+import io.quarkus.panache.common.Page;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+/**
+ * Reactive counterpart of {@link Todo} mapped to the same collection.
+ */
+@MongoEntity(collection = "todos")
+public class ReactiveTodo extends ReactivePanacheMongoEntity {
+	@NotBlank
+	public String name;
+	@NotBlank
+	public String personId;
+	public String personName;
+	public boolean done;
+	public Instant createdDate;
+	public Instant plannedEndDate;
+	@NotNull
+	public Category category;
+	public long version;
+
+	public ReactiveTodo() {
+		createdDate = Instant.now();
+		plannedEndDate = createdDate.plusSeconds(TimeUnit.DAYS.toSeconds(1));
+	}
+
+	public static Uni<List<ReactiveTodo>> findAll(Integer pageSize) {
+		return find("{}")
+				.page(Page.ofSize(pageSize))
+				.list();
+	}
+
+	public static Uni<List<ReactiveTodo>> findTodosByPersonId(Integer pageSize, String personId) {
+		return find("personId = ?1", personId)
+				.page(Page.ofSize(pageSize))
+				.list();
+	}
+
+	/**
+	 * Reactive counterpart of {@link Todo#findAndUpdate(ObjectId, Long, Bson)}.
+	 *
+	 * @return the todo before the update or null when no todo matched id and expectedVersion
+	 */
+	public static Uni<ReactiveTodo> findAndUpdate(ObjectId id, Long expectedVersion, Bson update) {
+		ReactiveMongoCollection<ReactiveTodo> collection = mongoCollection();
+		return collection.findOneAndUpdate(Todo.versionFilter(id, expectedVersion), Updates.combine(update, Updates.inc("version", 1L)),
+				new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+	}
+
+	public static Multi<ReactiveTodo> streamAllByCategory(TodoFilter filter) {
+		ReactiveMongoCollection<ReactiveTodo> collection = mongoCollection();
+		Multi<ReactiveTodo> todos = collection.find(filter.toBson());
+		if (!filter.isIncludeArchived()) {
+			return todos;
+		}
+		Multi<ReactiveTodo> archived = mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION, ReactiveTodo.class)
+				.find(filter.toBson());
+		return Multi.createFrom().deferred(() -> {
+			// A todo being archived can briefly be in both collections
+			Set<ObjectId> ids = new HashSet<>();
+			return Multi.createBy().concatenating().streams(todos, archived)
+					.transform().byFilteringItemsWith(t -> ids.add(t.id));
+		});
+	}
+
+	/**
+	 * Reactive counterpart of {@link Todo#countByCategory(TodoFilter)}.
+	 */
+	public static Uni<Map<Category, Long>> countByCategory(TodoFilter filter) {
+		ReactiveMongoCollection<ReactiveTodo> collection = mongoCollection();
+		Multi<Document> totals = collection.aggregate(Todo.countByCategoryPipeline(filter), Document.class);
+		if (filter.isIncludeArchived()) {
+			totals = Multi.createBy().concatenating().streams(totals, mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION)
+					.aggregate(Todo.countByCategoryPipeline(filter)));
+		}
+		return totals.collectItems()
+				.<Map<Category, Long>>in(TreeMap::new, (map, d) -> map.merge(Category.valueOf(d.getString("_id")),
+						d.get("total", Number.class).longValue(), Long::sum));
+	}
+}
@@ -0,0 +1,278 @@
+package com.github.todo;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.security.RolesAllowed;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.BeanParam;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import com.mongodb.client.model.Updates;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.smallrye.mutiny.Uni;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Counted;
+import org.eclipse.microprofile.metrics.annotation.Metered;
+import org.eclipse.microprofile.metrics.annotation.Timed;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.NullValueCheckStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking variant of {@link TodoResource} built on reactive Panache and {@link ReactivePersonService},
+ * with the same JSON contract, roles and fallback behavior.
+ */
+@Path("/api/reactive/todos")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@RequestScoped
+@RegisterForReflection
+public class ReactiveTodoResource {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTodoResource.class);
+
+    @Inject
+    ReactiveTodoMapper todoMapper;
+
+    @Inject
+    PersonNameResolver personNameResolver;
+
+    @Inject
+    JsonWebToken jwt;
+
+    @Inject
+    TodoCategoryCounters todoCategoryCounters;
+
+    @ConfigProperty(name = "configuration.pagination.maxPageSize", defaultValue = "1000")
+    int maxPageSize;
+
+    @GET
+    @Timed(name = "getAllReactiveTodosTimed",
+            description = "Monitor the time getAllTodos method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
+    @Metered(name = "getAllReactiveTodosMetered",
+            unit = MetricUnits.MILLISECONDS,
+            description = "Monitor the rate events occurred",
+            absolute = true)
+    @Counted(
+            name = "getAllReactiveTodosCounted",
+            absolute = true,
+            displayName = "getAllReactiveTodos",
+            description = "Monitor how many times getAllTodos method was called")
+    @RolesAllowed({"todo:read", "admin"})
+    public Uni<Response> getAllTodos(@QueryParam("pageSize") @DefaultValue("10") Integer pageSize,
+            @Context SecurityContext ctx) {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new BadRequestException(String.format("Invalid pageSize: %s - allowed values: 1..%s", pageSize, maxPageSize));
+        }
+        String authorizationHeader = "Bearer " + jwt.getRawToken();
+        String principalName = ctx.getUserPrincipal().getName();
+        Uni<List<ReactiveTodo>> todos;
+        if (ctx.isUserInRole("admin")) {
+            todos = ReactiveTodo.findAll(pageSize);
+        } else {
+            todos = ReactiveTodo.findTodosByPersonId(pageSize, principalName);
+        }
+        return todos
+                .map(todoMapper::toResource)
+                .onItem().<Response>produceUni(todosDto -> personNameResolver.resolveReactive(todosDto.stream()
+                        .map(TodoDto::getPersonId)
+                        .collect(Collectors.toList()), authorizationHeader)
+                        .map(personNames -> {
+                            todosDto.forEach(t -> t.setPersonName(personNames.getOrDefault(t.getPersonId(), PersonNameResolver.DEFAULT_NAME)));
+                            return Response.ok(todosDto).build();
+                        }))
+                .onFailure().recoverWithItem(e -> {
+                    log.warn("Error on method getAllTodos", e);
+                    return fallback(principalName);
+                });
+    }
+
+    @Path("/getTotalCategory")
+    @GET
+    @RolesAllowed("**")
+    public Uni<Response> getTotalCategory(@BeanParam TodoFilter filter,
+            @QueryParam("countsOnly") @DefaultValue("false") boolean countsOnly) {
+        if (countsOnly) {
+            // Same source choice as TodoResource, counters only cover the todos collection
+            boolean fromCounters = todoCategoryCounters.isEnabled() && !filter.hasPlannedEndDateRange()
+                    && !filter.isIncludeArchived();
+            return (fromCounters ? todoCategoryCounters.countByCategoryReactive(filter) : ReactiveTodo.countByCategory(filter))
+                    .map(totals -> Response.ok(totals.entrySet()
+                            .stream()
+                            .map(e -> new CategoryTotalDto(e.getKey(), e.getValue()))
+                            .collect(Collectors.toList()))
+                            .build());
+        }
+        return ReactiveTodo.streamAllByCategory(filter)
+                .collectItems()
+                .<Map<Category, List<TodoDto>>>in(TreeMap::new, (map, t) -> {
+                    TodoDto todoDto = todoMapper.toResource(t);
+                    todoDto.setCategory(null);
+                    map.computeIfAbsent(t.category, c -> new ArrayList<>()).add(todoDto);
+                })
+                .map(map -> Response.ok(map).build());
+    }
+
+    private Response fallback(String principalName) {
+        TodoDto todoDto = new TodoDto();
+        todoDto.setName(String.format("Some error occurred! - please try later - %s", principalName));
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity(Collections.singletonList(todoDto))
+                .build();
+    }
+
+    @GET
+    @Path("/{id}")
+    @RolesAllowed({"todo:read", "admin"})
+    public Uni<Response> getById(@PathParam("id") String id, @Context SecurityContext ctx) {
+        return getById(id)
+                .map(t -> Response.ok(todoMapper.toResource(t)).build());
+    }
+
+    @POST
+    @RolesAllowed({"todo:create", "admin"})
+    public Uni<Response> create(@Valid TodoDto todoDto) {
+        ReactiveTodo todo = todoMapper.toModel(todoDto);
+        return resolvePersonName(todo.personId)
+                .onItem().produceUni(personName -> {
+                    todo.personName = personName;
+                    return todo.persist();
+                })
+                .onItem().produceUni(v -> todoCategoryCounters.onCreated(todo))
+                .map(v -> Response.created(URI.create(String.format("/api/reactive/todos/%s", todo.id)))
+                        .entity(todoMapper.toResource(todo))
+                        .build());
+    }
+
+    @PUT
+    @Path("/{id}")
+    @RolesAllowed({"todo:update", "admin"})
+    public Uni<Response> update(@Valid TodoDto todoDto, @PathParam("id") String id,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        ObjectId objectId = new ObjectId(id);
+        Long expectedVersion = TodoResource.parseVersion(ifMatch);
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.set("name", todoDto.getName()));
+        updates.add(Updates.set("personId", todoDto.getPersonId()));
+        if (todoDto.getDone() != null) {
+            updates.add(Updates.set("done", todoDto.getDone()));
+            if (todoDto.getDone()) {
+                // set by OverdueTodoScanner
+                updates.add(Updates.unset("overdue"));
+            }
+        }
+        return resolvePersonName(todoDto.getPersonId())
+                .onItem().produceUni(personName -> {
+                    updates.add(Updates.set("personName", personName));
+                    return ReactiveTodo.findAndUpdate(objectId, expectedVersion, Updates.combine(updates))
+                            .map(t -> {
+                                if (t != null) {
+                                    t.personName = personName;
+                                }
+                                return t;
+                            });
+                })
+                .onItem().produceUni(t -> {
+                    if (t == null) {
+                        return missed(objectId, expectedVersion);
+                    }
+                    String oldPersonId = t.personId;
+                    boolean oldDone = t.done;
+                    t.name = todoDto.getName();
+                    t.personId = todoDto.getPersonId();
+                    if (todoDto.getDone() != null) {
+                        t.done = todoDto.getDone();
+                    }
+                    t.version++;
+                    return todoCategoryCounters.onUpdated(oldPersonId, t.category, oldDone, t)
+                            .map(v -> Response.ok(t).tag(new EntityTag(String.valueOf(t.version), true)).build());
+                });
+    }
+
+    /**
+     * @return name to store on the todo or null when person-service could not resolve it, repaired later by {@link PersonNameRepair}
+     */
+    private Uni<String> resolvePersonName(String personId) {
+        return personNameResolver.resolveReactive(Collections.singletonList(personId), "Bearer " + jwt.getRawToken())
+                .map(names -> {
+                    String name = names.get(personId);
+                    return PersonNameResolver.DEFAULT_NAME.equals(name) ? null : name;
+                });
+    }
+
+    /**
+     * Only on a miss, tells a stale If-Match apart from a missing todo
+     */
+    private static Uni<Response> missed(ObjectId id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Uni.createFrom().failure(new NotFoundException());
+        }
+        return ReactiveTodo.<ReactiveTodo>findByIdOptional(id)
+                .map(t -> t.map(found -> Response.status(Response.Status.PRECONDITION_FAILED).build())
+                        .orElseThrow(NotFoundException::new));
+    }
+
+    @DELETE
+    @Path("/{id}")
+    @RolesAllowed({"todo:delete", "admin"})
+    public Uni<Response> delete(@PathParam("id") String id) {
+        return getById(id)
+                .onItem().produceUni(t -> t.delete()
+                        .onItem().produceUni(v -> todoCategoryCounters.onDeleted(t)))
+                .map(v -> Response.noContent().build());
+    }
+
+    private Uni<ReactiveTodo> getById(String id) {
+        return ReactiveTodo.<ReactiveTodo>findByIdOptional(new ObjectId(id))
+                .map(t -> t.orElseThrow(NotFoundException::new));
+    }
+
+    @Mapper(componentModel = "cdi", nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS)
+    interface ReactiveTodoMapper {
+        TodoDto toResource(ReactiveTodo todo);
+        default List<TodoDto> toResource(List<ReactiveTodo> todos) {
+            List<TodoDto> todosDto = new ArrayList<>(todos.size());
+            for (ReactiveTodo t : todos) {
+                todosDto.add(new TodoDto(t.name, t.personId, t.personName, t.done, t.createdDate, t.plannedEndDate, t.category));
+            }
+            return todosDto;
+        }
+        // id and version are never taken from a request body
+        @Mapping(target = "id", ignore = true)
+        @Mapping(target = "version", ignore = true)
+        ReactiveTodo toModel(TodoDto todoDto);
+    }
+}
@@ -2,77 +2,337 @@ package com.github.todo;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndDeleteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import io.quarkus.mongodb.panache.MongoEntity;
 import io.quarkus.mongodb.panache.PanacheMongoEntity;
-import io.quarkus.mongodb.panache.PanacheQuery;
-import io.quarkus.panache.common.Page;
-import io.quarkus.panache.common.Parameters;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 @MongoEntity(collection = "todos")
 public class Todo extends PanacheMongoEntity implements Serializable {
+	/**
+	 * Done todos moved out of todos by {@link TodoArchiver}, read only through includeArchived.
+	 */
+	public static final String ARCHIVE_COLLECTION = "todos_archive";
+
 	@NotBlank
 	public String name;
 	@NotBlank
 	public String personId;
+	/**
+	 * Copy of the person name taken at write time and refreshed by {@link PersonNameRepair}, null until resolved.
+	 */
+	public String personName;
 	public boolean done;
-	public Instant createdDate = Instant.now();
-	public Instant plannedEndDate = Instant.now().plusSeconds(TimeUnit.DAYS.toSeconds(1));
+	public Instant createdDate;
+	public Instant plannedEndDate;
 	@NotNull
 	public Category category;
+	/**
+	 * Incremented on every update, exposed as a weak ETag for optimistic concurrency.
+	 */
+	public long version;
 
-	public static List<Todo> findAll(Integer pageSize) {
-		return find("{}")
-				.page(Page.ofSize(pageSize))
-				.list();
+	/**
+	 * Defaults both dates from a single clock read, the mappers only overwrite them with non-null values.
+	 */
+	public Todo() {
+		createdDate = Instant.now();
+		plannedEndDate = createdDate.plusSeconds(TimeUnit.DAYS.toSeconds(1));
 	}
 
-	public static List<Todo> findTodosByPersonId(Integer pageSize, String personId) {
-	    return find("personId = ?1", personId)
-            .page(Page.ofSize(pageSize))
-            .list();
+	/**
+	 * Keyset pagination on _id, fetches one extra document so callers can tell whether a next page exists.
+	 *
+	 * @param pageSize - page size
+	 * @param after - last _id of the previous page or null for the first page
+	 * @param projection - fields to fetch or null for whole documents
+	 * @param includeArchived - whether to merge in todos of the archive collection
+	 * @return up to pageSize + 1 todos ordered by _id
+	 */
+	public static List<TodoDto> findAll(Integer pageSize, ObjectId after, Bson projection, boolean includeArchived) {
+		return findPage(new Document(), pageSize, after, projection, includeArchived);
 	}
 
-	public static Map<Category, List<Todo>> findAllByCategory(Instant plannedEndDate, Boolean done,
-			String personId, String categoryName) {
-		Parameters parameters = new Parameters();
-		StringBuilder query = new StringBuilder();
-		if (done != null) {
-			query.append(" and done = :done");
-			parameters.and("done", done);
-		}
-		if (plannedEndDate != null) {
-			query.append(" and plannedEndDate <= :plannedEndDate");
-			parameters.and("plannedEndDate", plannedEndDate);
-		}
-		if (StringUtils.isNotBlank(personId)) {
-			query.append(" and personId = :personId");
-			parameters.and("personId", personId);
+	public static List<TodoDto> findTodosByPersonId(Integer pageSize, String personId, ObjectId after, Bson projection,
+			boolean includeArchived) {
+		return findPage(Filters.eq("personId", personId), pageSize, after, projection, includeArchived);
+	}
+
+	/**
+	 * Cursor over all todos, optionally restricted to one person, fetched from the server batchSize documents at a time.
+	 * With includeArchived the todos and archive cursors are merged by _id.
+	 */
+	public static MongoCursor<TodoDto> streamAll(String personId, int batchSize, Bson projection, boolean includeArchived) {
+		Bson filter = StringUtils.isNotBlank(personId) ? Filters.eq("personId", personId) : new Document();
+		MongoCursor<TodoDto> cursor = streamAll(dtoCollection(), filter, batchSize, projection);
+		return includeArchived ? new MergedCursor(cursor, streamAll(archiveDtoCollection(), filter, batchSize, projection)) : cursor;
+	}
+
+	private static MongoCursor<TodoDto> streamAll(MongoCollection<TodoDto> collection, Bson filter, int batchSize, Bson projection) {
+		return collection.find(filter)
+				.projection(projection)
+				.sort(Sorts.ascending("_id"))
+				.batchSize(batchSize)
+				.iterator();
+	}
+
+	/**
+	 * @return the archived todo or null
+	 */
+	public static Todo findArchivedById(ObjectId id) {
+		return mongoDatabase().getCollection(ARCHIVE_COLLECTION, Todo.class).find(Filters.eq("_id", id)).first();
+	}
+
+	public static BulkWriteResult bulkWrite(List<? extends WriteModel<? extends Todo>> models) {
+		MongoCollection<Todo> collection = mongoCollection();
+		return collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+	}
+
+	/**
+	 * Applies the update and increments version in a single round trip.
+	 *
+	 * @param id - todo id
+	 * @param expectedVersion - version the update is conditional on or null to update unconditionally
+	 * @param update - $set of the changed fields
+	 * @return the todo as it was before the update or null when no todo matched id and expectedVersion
+	 */
+	public static Todo findAndUpdate(ObjectId id, Long expectedVersion, Bson update) {
+		MongoCollection<Todo> collection = mongoCollection();
+		return collection.findOneAndUpdate(versionFilter(id, expectedVersion), Updates.combine(update, Updates.inc("version", 1L)),
+				new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+	}
+
+	static Bson versionFilter(ObjectId id, Long expectedVersion) {
+		Bson filter = Filters.eq("_id", id);
+		if (expectedVersion != null) {
+			// todos created before version was introduced don't have the field and are treated as version 0
+			filter = Filters.and(filter, expectedVersion == 0 ? Filters.in("version", 0L, null) : Filters.eq("version", expectedVersion));
 		}
-		if (StringUtils.isNotBlank(categoryName)) {
-			query.append(" and category like :category");
-			parameters.and("category", categoryName);
+		return filter;
+	}
+
+	/**
+	 * Deletes in a single round trip, returning only the fields needed to maintain {@link TodoCategoryCounters}.
+	 *
+	 * @return the deleted todo or null when no todo matched id
+	 */
+	public static Todo findAndDelete(ObjectId id) {
+		MongoCollection<Todo> collection = mongoCollection();
+		return collection.findOneAndDelete(Filters.eq("_id", id),
+				new FindOneAndDeleteOptions().projection(Projections.include("personId", "category", "done")));
+	}
+
+	public static void insertMany(List<Todo> todos) {
+		MongoCollection<Todo> collection = mongoCollection();
+		collection.insertMany(todos, new InsertManyOptions().ordered(false));
+	}
+
+	private static List<TodoDto> findPage(Bson filter, Integer pageSize, ObjectId after, Bson projection, boolean includeArchived) {
+		List<TodoDto> todos = findPage(dtoCollection(), filter, pageSize, after, projection);
+		if (!includeArchived) {
+			return todos;
 		}
-		PanacheQuery<Todo> panacheQuery;
-		String queryString = query.toString();
-		if (StringUtils.isNotBlank(queryString)) {
-			panacheQuery = find(queryString.replaceFirst(" and ", ""), parameters);
-		} else {
-			panacheQuery = findAll();
+		List<TodoDto> archived = findPage(archiveDtoCollection(), filter, pageSize, after, projection);
+		List<TodoDto> page = new ArrayList<>(pageSize + 1);
+		try (MergedCursor cursor = new MergedCursor(todos.iterator(), archived.iterator())) {
+			while (cursor.hasNext() && page.size() <= pageSize) {
+				page.add(cursor.next());
+			}
 		}
-		return panacheQuery
-				.stream()
-				.collect(Collectors.groupingBy(t -> t.category,
+		return page;
+	}
+
+	private static List<TodoDto> findPage(MongoCollection<TodoDto> collection, Bson filter, Integer pageSize, ObjectId after,
+			Bson projection) {
+		return collection.find(after != null ? Filters.and(filter, Filters.gt("_id", after)) : filter)
+				.projection(projection)
+				.sort(Sorts.ascending("_id"))
+				.limit(pageSize + 1)
+				.into(new ArrayList<>());
+	}
+
+	/**
+	 * Todos collection decoding documents straight into {@link TodoDto} through {@link TodoDtoCodec}.
+	 */
+	private static MongoCollection<TodoDto> dtoCollection() {
+		return mongoCollection().withDocumentClass(TodoDto.class);
+	}
+
+	private static MongoCollection<TodoDto> archiveDtoCollection() {
+		return mongoDatabase().getCollection(ARCHIVE_COLLECTION, TodoDto.class);
+	}
+
+	public static Map<Category, List<TodoDto>> findAllByCategory(TodoFilter filter, Bson projection) {
+		MongoCollection<TodoDto> collection = dtoCollection();
+		Map<Category, List<TodoDto>> todos = StreamSupport.stream(collection.find(filter.toBson()).projection(projection).spliterator(), false)
+				.collect(Collectors.groupingBy(TodoDto::getCategory,
 						TreeMap::new,
 						Collectors.mapping(t -> t, Collectors.toList())));
+		if (filter.isIncludeArchived()) {
+			// A todo being archived can briefly be in both collections
+			Set<ObjectId> ids = new HashSet<>();
+			todos.values().forEach(list -> list.forEach(t -> ids.add(t.id)));
+			archiveDtoCollection().find(filter.toBson()).projection(projection).forEach(t -> {
+				if (!ids.contains(t.id)) {
+					todos.computeIfAbsent(t.getCategory(), c -> new ArrayList<>()).add(t);
+				}
+			});
+		}
+		return todos;
+	}
+
+	public static Map<Category, Long> countByCategory(TodoFilter filter) {
+		Map<Category, Long> totals = new TreeMap<>();
+		Consumer<Document> add = d -> totals.merge(Category.valueOf(d.getString("_id")), d.get("total", Number.class).longValue(), Long::sum);
+		mongoCollection().aggregate(countByCategoryPipeline(filter), Document.class).forEach(add);
+		if (filter.isIncludeArchived()) {
+			mongoDatabase().getCollection(ARCHIVE_COLLECTION).aggregate(countByCategoryPipeline(filter)).forEach(add);
+		}
+		return totals;
+	}
+
+	/**
+	 * Counts todos per bucket of dateField, optionally split by category and/or done.
+	 *
+	 * @return one document per non-empty group with _id.bucket, _id.category, _id.done and total, sorted by bucket
+	 */
+	public static List<Document> histogram(TodoFilter filter, String dateField, TodoHistogramDto.Granularity granularity,
+			boolean byCategory, boolean byDone) {
+		Document groupId = new Document("bucket", new Document("$dateToString",
+				new Document("format", granularity.getFormat()).append("date", "$" + dateField)));
+		if (byCategory) {
+			groupId.append("category", "$category");
+		}
+		if (byDone) {
+			groupId.append("done", "$done");
+		}
+		List<Bson> pipeline = Arrays.asList(
+				Aggregates.match(Filters.and(filter.toBson(), Filters.ne(dateField, null))),
+				Aggregates.group(groupId, Accumulators.sum("total", 1)),
+				Aggregates.sort(Sorts.ascending("_id.bucket")));
+		List<Document> groups = mongoCollection().aggregate(pipeline, Document.class).into(new ArrayList<>());
+		if (filter.isIncludeArchived()) {
+			// Groups present in both collections are summed by the caller
+			mongoDatabase().getCollection(ARCHIVE_COLLECTION).aggregate(pipeline).into(groups);
+			groups.sort(Comparator.comparing(d -> d.get("_id", Document.class).getString("bucket")));
+		}
+		return groups;
+	}
+
+	static List<Bson> countByCategoryPipeline(TodoFilter filter) {
+		return Arrays.asList(
+				Aggregates.match(filter.toBson()),
+				Aggregates.group("$category", Accumulators.sum("total", 1)));
+	}
+
+	/**
+	 * Merges two cursors ordered by _id, on equal ids only the todo of the first cursor is returned.
+	 */
+	private static final class MergedCursor implements MongoCursor<TodoDto> {
+		private final Iterator<TodoDto> first;
+		private final Iterator<TodoDto> second;
+		private TodoDto nextFirst;
+		private TodoDto nextSecond;
+
+		MergedCursor(Iterator<TodoDto> first, Iterator<TodoDto> second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextFirst == null && first.hasNext()) {
+				nextFirst = first.next();
+			}
+			if (nextSecond == null && second.hasNext()) {
+				nextSecond = second.next();
+			}
+			return nextFirst != null || nextSecond != null;
+		}
+
+		@Override
+		public TodoDto next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			TodoDto next;
+			int compare = nextFirst == null ? 1 : nextSecond == null ? -1 : nextFirst.id.compareTo(nextSecond.id);
+			if (compare <= 0) {
+				next = nextFirst;
+				nextFirst = null;
+				if (compare == 0) {
+					nextSecond = null;
+				}
+			} else {
+				next = nextSecond;
+				nextSecond = null;
+			}
+			return next;
+		}
+
+		@Override
+		public TodoDto tryNext() {
+			return hasNext() ? next() : null;
+		}
+
+		@Override
+		public ServerCursor getServerCursor() {
+			return null;
+		}
+
+		@Override
+		public ServerAddress getServerAddress() {
+			return first instanceof MongoCursor ? ((MongoCursor<TodoDto>) first).getServerAddress() : null;
+		}
+
+		@Override
+		public void close() {
+			try {
+				if (first instanceof MongoCursor) {
+					((MongoCursor<TodoDto>) first).close();
+				}
+			} finally {
+				if (second instanceof MongoCursor) {
+					((MongoCursor<TodoDto>) second).close();
+				}
+			}
+		}
 	}
 }
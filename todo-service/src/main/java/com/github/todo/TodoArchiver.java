@@ -0,0 +1,193 @@
+package com.github.todo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.scheduler.Scheduled;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves done todos whose plannedEndDate is older than configuration.archive.afterDays from todos to
+ * {@link Todo#ARCHIVE_COLLECTION}, in batches of configuration.archive.batchSize read on the done_1_plannedEndDate_1 index.
+ * <p>
+ * A batch is first upserted into the archive, then deleted from todos only where its version is unchanged, and the
+ * archive copies of todos that were modified meanwhile are removed again. Every step can be replayed, a run
+ * interrupted at any point leaves at worst a todo in both collections, which reads with includeArchived skip and the
+ * next run completes.
+ */
+@ApplicationScoped
+public class TodoArchiver {
+	private static final Logger log = LoggerFactory.getLogger(TodoArchiver.class);
+
+	@ConfigProperty(name = "configuration.archive.enabled", defaultValue = "false")
+	boolean enabled;
+
+	@ConfigProperty(name = "configuration.archive.afterDays", defaultValue = "30")
+	int afterDays;
+
+	@ConfigProperty(name = "configuration.archive.batchSize", defaultValue = "500")
+	int batchSize;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	@Inject
+	TodoCategoryCounters todoCategoryCounters;
+
+	private final AtomicBoolean archiving = new AtomicBoolean();
+
+	private Counter archived;
+
+	@PostConstruct
+	void init() {
+		archived = metricRegistry.counter(Metadata.builder()
+				.withName("todosArchived")
+				.withDescription("Todos moved to the archive collection")
+				.withType(MetricType.COUNTER)
+				.withUnit(MetricUnits.NONE)
+				.build());
+	}
+
+	@Scheduled(every = "{configuration.archive.every}")
+	void scheduledArchive() {
+		if (enabled) {
+			try {
+				archive();
+			} catch (Exception e) {
+				log.warn("Error on method scheduledArchive", e);
+			}
+		}
+	}
+
+	/**
+	 * Runs regardless of configuration.archive.enabled, which only controls the scheduled runs.
+	 *
+	 * @return number of todos moved to the archive, 0 when a run is already in progress
+	 */
+	public long archive() {
+		if (!archiving.compareAndSet(false, true)) {
+			return 0;
+		}
+		try {
+			return doArchive();
+		} finally {
+			archiving.set(false);
+		}
+	}
+
+	private long doArchive() {
+		Instant start = Instant.now();
+		MongoCollection<Document> todos = todos();
+		Bson filter = Filters.and(Filters.eq("done", true),
+				Filters.lt("plannedEndDate", Date.from(start.minus(Duration.ofDays(afterDays)))));
+		long total = 0;
+		List<Document> batch;
+		do {
+			batch = todos.find(filter)
+					.sort(Sorts.ascending("done", "plannedEndDate"))
+					.limit(batchSize)
+					.into(new ArrayList<>(batchSize));
+			if (batch.isEmpty()) {
+				break;
+			}
+			long deleted = archiveBatch(batch);
+			total += deleted;
+			archived.inc(deleted);
+			if (deleted == 0) {
+				// Every todo of the batch is being modified, leave them to the next run
+				break;
+			}
+		} while (batch.size() == batchSize);
+
+		log.info("Archived {} todos in {}ms", total, Duration.between(start, Instant.now()).toMillis());
+		return total;
+	}
+
+	/**
+	 * Copies todos read from the todos collection to the archive, then deletes those whose version did not change
+	 * since they were read.
+	 *
+	 * @return number of todos moved to the archive
+	 */
+	long archiveBatch(List<Document> batch) {
+		MongoCollection<Document> todos = todos();
+		MongoCollection<Document> archive = Todo.mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION);
+		List<WriteModel<Document>> copies = new ArrayList<>(batch.size());
+		List<WriteModel<Document>> deletes = new ArrayList<>(batch.size());
+		for (Document todo : batch) {
+			copies.add(new ReplaceOneModel<>(Filters.eq("_id", todo.get("_id")), todo, new ReplaceOptions().upsert(true)));
+			deletes.add(new DeleteOneModel<>(Filters.and(Filters.eq("_id", todo.get("_id")), Filters.eq("version", todo.get("version")))));
+		}
+		archive.bulkWrite(copies, new BulkWriteOptions().ordered(false));
+		long deleted = todos.bulkWrite(deletes, new BulkWriteOptions().ordered(false)).getDeletedCount();
+		Set<Object> remaining = deleted < batch.size()
+				// Todos updated between the read and the delete stay in todos, their archive copies are stale
+				? removeStaleCopies(todos, archive, batch)
+				: Collections.emptySet();
+		List<Todo> removed = new ArrayList<>(batch.size());
+		for (Document todo : batch) {
+			if (!remaining.contains(todo.get("_id"))) {
+				removed.add(counterKey(todo));
+			}
+		}
+		todoCategoryCounters.onChanged(removed, Collections.emptyList());
+		return deleted;
+	}
+
+	private static Todo counterKey(Document document) {
+		Todo todo = new Todo();
+		todo.personId = document.getString("personId");
+		String category = document.getString("category");
+		todo.category = category != null ? Category.valueOf(category) : null;
+		todo.done = document.getBoolean("done", false);
+		return todo;
+	}
+
+	private static MongoCollection<Document> todos() {
+		return Todo.mongoCollection().withDocumentClass(Document.class);
+	}
+
+	/**
+	 * @return ids of the batch still in todos
+	 */
+	private static Set<Object> removeStaleCopies(MongoCollection<Document> todos, MongoCollection<Document> archive, List<Document> batch) {
+		List<Object> ids = new ArrayList<>(batch.size());
+		batch.forEach(d -> ids.add(d.get("_id")));
+		Set<Object> remaining = new HashSet<>();
+		todos.find(Filters.in("_id", ids))
+				.projection(new Document("_id", 1))
+				.forEach(d -> remaining.add(d.get("_id")));
+		if (!remaining.isEmpty()) {
+			archive.deleteMany(Filters.in("_id", new ArrayList<>(remaining)));
+		}
+		return remaining;
+	}
+}
@@ -0,0 +1,40 @@
+package com.github.todo;
+
+import javax.validation.constraints.NotNull;
+
+public class TodoBulkOperation {
+	public enum Op {
+		CREATE,
+		UPDATE,
+		DELETE
+	}
+
+	@NotNull
+	private Op op;
+	private String id;
+	private TodoDto todo;
+
+	public Op getOp() {
+		return op;
+	}
+
+	public void setOp(Op op) {
+		this.op = op;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public TodoDto getTodo() {
+		return todo;
+	}
+
+	public void setTodo(TodoDto todo) {
+		this.todo = todo;
+	}
+}
@@ -0,0 +1,267 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.security.RolesAllowed;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotEmpty;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk create/update/delete of todos. All operations are validated before anything is written, then applied
+ * with unordered bulk writes in chunks of configuration.bulk.chunkSize operations.
+ */
+@Path("/api/todos/bulk")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@RequestScoped
+@RegisterForReflection
+public class TodoBulkResource {
+    private static final Logger log = LoggerFactory.getLogger(TodoBulkResource.class);
+
+    @Inject
+    TodoResource.TodoMapper todoMapper;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    TodoCategoryCounters todoCategoryCounters;
+
+    @Inject
+    PersonNameResolver personNameResolver;
+
+    @Inject
+    JsonWebToken jwt;
+
+    @ConfigProperty(name = "configuration.bulk.chunkSize", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "configuration.bulk.maxOperations", defaultValue = "10000")
+    int maxOperations;
+
+    @POST
+    @RolesAllowed({"todo:create", "todo:update", "todo:delete", "admin"})
+    public Response bulk(@NotEmpty List<TodoBulkOperation> operations, @Context SecurityContext ctx) {
+        if (operations.size() > maxOperations) {
+            return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE).build();
+        }
+
+        List<TodoBulkResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            results.add(validate(i, operations.get(i), ctx));
+        }
+        if (results.stream().anyMatch(r -> r.getStatus() != null)) {
+            results.stream()
+                    .filter(r -> r.getStatus() == null)
+                    .forEach(r -> r.setStatus(TodoBulkResult.Status.SKIPPED));
+            return Response.status(Response.Status.BAD_REQUEST).entity(results).build();
+        }
+
+        // One lookup per distinct personId for the whole request
+        Map<String, String> personNames = personNameResolver.resolve(operations.stream()
+                .filter(o -> o.getTodo() != null)
+                .map(o -> o.getTodo().getPersonId())
+                .collect(Collectors.toList()), "Bearer " + jwt.getRawToken());
+        // Bulk writes do not return matches nor previous values per operation, read before writing what the
+        // NOT_FOUND status and the counters of updates and deletes need
+        Map<ObjectId, Todo> current = previous(operations);
+        List<Integer> indexes = new ArrayList<>(operations.size());
+        List<WriteModel<Todo>> models = new ArrayList<>(operations.size());
+        Todo[] before = new Todo[operations.size()];
+        Todo[] after = new Todo[operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            TodoBulkOperation operation = operations.get(i);
+            TodoBulkResult result = results.get(i);
+            WriteModel<Todo> model = toWriteModel(operation, result, personNames);
+            if (operation.getOp() == TodoBulkOperation.Op.CREATE) {
+                after[i] = ((InsertOneModel<Todo>) model).getDocument();
+            } else {
+                ObjectId id = new ObjectId(operation.getId());
+                before[i] = current.get(id);
+                if (before[i] == null) {
+                    result.setStatus(TodoBulkResult.Status.NOT_FOUND);
+                    continue;
+                }
+                if (operation.getOp() == TodoBulkOperation.Op.DELETE) {
+                    current.remove(id);
+                } else {
+                    after[i] = updated(before[i], operation.getTodo());
+                    current.put(id, after[i]);
+                }
+            }
+            indexes.add(i);
+            models.add(model);
+        }
+        write(indexes, models, results);
+
+        List<Todo> removed = new ArrayList<>();
+        List<Todo> added = new ArrayList<>();
+        for (int i : indexes) {
+            if (results.get(i).getStatus() != TodoBulkResult.Status.FAILED) {
+                if (before[i] != null) {
+                    removed.add(before[i]);
+                }
+                if (after[i] != null) {
+                    added.add(after[i]);
+                }
+            }
+        }
+        todoCategoryCounters.onChanged(removed, added);
+        return Response.ok(results).build();
+    }
+
+    /**
+     * @param indexes - index of the operation of each model
+     */
+    private void write(List<Integer> indexes, List<WriteModel<Todo>> models, List<TodoBulkResult> results) {
+        for (int from = 0; from < models.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, models.size());
+            try {
+                Todo.bulkWrite(models.subList(from, to));
+            } catch (MongoBulkWriteException e) {
+                for (BulkWriteError error : e.getWriteErrors()) {
+                    TodoBulkResult result = results.get(indexes.get(from + error.getIndex()));
+                    result.setStatus(TodoBulkResult.Status.FAILED);
+                    result.setError(error.getMessage());
+                }
+            } catch (Exception e) {
+                log.warn("Error on method bulk", e);
+                indexes.subList(from, to).forEach(i -> {
+                    results.get(i).setStatus(TodoBulkResult.Status.FAILED);
+                    results.get(i).setError(e.getMessage());
+                });
+            }
+        }
+    }
+
+    /**
+     * @return the fields of an updated todo the counters are keyed by
+     */
+    private static Todo updated(Todo old, TodoDto todoDto) {
+        Todo updated = new Todo();
+        updated.id = old.id;
+        updated.personId = todoDto.getPersonId();
+        updated.category = old.category;
+        updated.done = todoDto.getDone() != null ? todoDto.getDone() : old.done;
+        return updated;
+    }
+
+    private static Map<ObjectId, Todo> previous(List<TodoBulkOperation> operations) {
+        List<ObjectId> ids = operations.stream()
+                .filter(o -> o.getOp() != TodoBulkOperation.Op.CREATE)
+                .map(o -> new ObjectId(o.getId()))
+                .collect(Collectors.toList());
+        Map<ObjectId, Todo> previous = new HashMap<>();
+        if (!ids.isEmpty()) {
+            MongoCollection<Todo> collection = Todo.mongoCollection();
+            collection.find(Filters.in("_id", ids))
+                    .projection(Projections.include("personId", "category", "done"))
+                    .forEach(t -> previous.put(t.id, t));
+        }
+        return previous;
+    }
+
+    private TodoBulkResult validate(int index, TodoBulkOperation operation, SecurityContext ctx) {
+        TodoBulkResult result = new TodoBulkResult(index, operation.getOp(), operation.getId(), null, null);
+        if (operation.getOp() == null) {
+            return invalid(result, "op is required");
+        }
+        if (!ctx.isUserInRole("admin") && !ctx.isUserInRole("todo:" + operation.getOp().name().toLowerCase())) {
+            result.setStatus(TodoBulkResult.Status.FORBIDDEN);
+            result.setError(String.format("Missing role todo:%s", operation.getOp().name().toLowerCase()));
+            return result;
+        }
+        if (operation.getOp() != TodoBulkOperation.Op.CREATE && (operation.getId() == null || !ObjectId.isValid(operation.getId()))) {
+            return invalid(result, "id is invalid");
+        }
+        if (operation.getOp() != TodoBulkOperation.Op.DELETE) {
+            if (operation.getTodo() == null) {
+                return invalid(result, "todo is required");
+            }
+            Set<ConstraintViolation<TodoDto>> violations = validator.validate(operation.getTodo());
+            if (!violations.isEmpty()) {
+                return invalid(result, violations.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+        }
+        return result;
+    }
+
+    private TodoBulkResult invalid(TodoBulkResult result, String error) {
+        result.setStatus(TodoBulkResult.Status.INVALID);
+        result.setError(error);
+        return result;
+    }
+
+    private WriteModel<Todo> toWriteModel(TodoBulkOperation operation, TodoBulkResult result, Map<String, String> personNames) {
+        switch (operation.getOp()) {
+            case CREATE:
+                Todo todo = todoMapper.toModel(operation.getTodo());
+                todo.id = new ObjectId();
+                todo.personName = storedPersonName(personNames, todo.personId);
+                result.setId(todo.id.toHexString());
+                result.setStatus(TodoBulkResult.Status.CREATED);
+                return new InsertOneModel<>(todo);
+            case UPDATE:
+                TodoDto todoDto = operation.getTodo();
+                List<Bson> updates = new ArrayList<>();
+                updates.add(Updates.set("name", todoDto.getName()));
+                updates.add(Updates.set("personId", todoDto.getPersonId()));
+                updates.add(Updates.set("personName", storedPersonName(personNames, todoDto.getPersonId())));
+                if (todoDto.getDone() != null) {
+                    updates.add(Updates.set("done", todoDto.getDone()));
+                    if (todoDto.getDone()) {
+                        // set by OverdueTodoScanner
+                        updates.add(Updates.unset("overdue"));
+                    }
+                }
+                updates.add(Updates.inc("version", 1L));
+                result.setStatus(TodoBulkResult.Status.UPDATED);
+                return new UpdateOneModel<>(Filters.eq("_id", new ObjectId(operation.getId())), Updates.combine(updates));
+            default:
+                result.setStatus(TodoBulkResult.Status.DELETED);
+                return new DeleteOneModel<>(Filters.eq("_id", new ObjectId(operation.getId())));
+        }
+    }
+
+    private static String storedPersonName(Map<String, String> personNames, String personId) {
+        String name = personNames.get(personId);
+        return PersonNameResolver.DEFAULT_NAME.equals(name) ? null : name;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.todo;
+
+public class TodoBulkResult {
+	/**
+	 * UPDATED and DELETED mean the todo existed when the request was applied and the write was acknowledged, unordered
+	 * bulk writes do not report matches per operation. NOT_FOUND todos were missing or deleted earlier in the request.
+	 */
+	public enum Status {
+		CREATED,
+		UPDATED,
+		DELETED,
+		NOT_FOUND,
+		INVALID,
+		FORBIDDEN,
+		FAILED,
+		SKIPPED
+	}
+
+	private int index;
+	private TodoBulkOperation.Op op;
+	private String id;
+	private Status status;
+	private String error;
+
+	TodoBulkResult() {}
+
+	TodoBulkResult(int index, TodoBulkOperation.Op op, String id, Status status, String error) {
+		this.index = index;
+		this.op = op;
+		this.id = id;
+		this.status = status;
+		this.error = error;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public TodoBulkOperation.Op getOp() {
+		return op;
+	}
+
+	public void setOp(TodoBulkOperation.Op op) {
+		this.op = op;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+}
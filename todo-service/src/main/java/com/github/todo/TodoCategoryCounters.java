@@ -0,0 +1,282 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.interceptor.Interceptor;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Materialized totals of todos keyed by (personId, category, done), kept up to date with $inc on every create, update
+ * and delete of {@link TodoResource}, {@link ReactiveTodoResource}, {@link TodoBulkResource}, {@link TodoWriteBehind}
+ * and {@link TodoArchiver}. The collection is never replaced, {@link #reconcile()} corrects single counters on startup
+ * and, when configuration.counters.reconcile.enabled is set, on a schedule.
+ */
+@ApplicationScoped
+public class TodoCategoryCounters {
+	private static final Logger log = LoggerFactory.getLogger(TodoCategoryCounters.class);
+
+	static final String COLLECTION = "todo_category_counters";
+
+	@ConfigProperty(name = "configuration.counters.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "configuration.counters.reconcile.enabled", defaultValue = "false")
+	boolean reconcileEnabled;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void onCreated(Todo todo) {
+		increment(todo.personId, todo.category, todo.done, 1);
+	}
+
+	/**
+	 * Same as {@link #onCreated(Todo)} for a batch of inserts, applied as one bulk write with one $inc per counter.
+	 */
+	public void onCreated(Collection<Todo> todos) {
+		onChanged(Collections.emptyList(), todos);
+	}
+
+	/**
+	 * Batch of creates, updates and deletes applied as one bulk write with one $inc per counter.
+	 *
+	 * @param before - previous state of updated and deleted todos
+	 * @param after - new state of created and updated todos
+	 */
+	public void onChanged(Collection<Todo> before, Collection<Todo> after) {
+		if (!enabled || before.isEmpty() && after.isEmpty()) {
+			return;
+		}
+		Map<Document, Long> deltas = new LinkedHashMap<>();
+		before.forEach(t -> deltas.merge(counterId(t.personId, t.category, t.done), -1L, Long::sum));
+		after.forEach(t -> deltas.merge(counterId(t.personId, t.category, t.done), 1L, Long::sum));
+		List<WriteModel<Document>> increments = deltas.entrySet().stream()
+				.filter(e -> e.getValue() != 0)
+				.map(e -> new UpdateOneModel<Document>(Filters.eq("_id", e.getKey()),
+						Updates.inc("total", e.getValue()),
+						new UpdateOptions().upsert(true)))
+				.collect(Collectors.toList());
+		if (increments.isEmpty()) {
+			return;
+		}
+		try {
+			collection().bulkWrite(increments, new BulkWriteOptions().ordered(false));
+		} catch (Exception e) {
+			log.warn("Error on method onChanged, counters will be repaired on next reconcile", e);
+		}
+	}
+
+	public void onDeleted(Todo todo) {
+		increment(todo.personId, todo.category, todo.done, -1);
+	}
+
+	public void onUpdated(String oldPersonId, Category oldCategory, boolean oldDone, Todo todo) {
+		if (!Objects.equals(oldPersonId, todo.personId) || oldCategory != todo.category || oldDone != todo.done) {
+			increment(oldPersonId, oldCategory, oldDone, -1);
+			increment(todo.personId, todo.category, todo.done, 1);
+		}
+	}
+
+	public Uni<Void> onCreated(ReactiveTodo todo) {
+		return incrementReactive(Collections.singletonList(incrementModel(todo.personId, todo.category, todo.done, 1L)));
+	}
+
+	public Uni<Void> onDeleted(ReactiveTodo todo) {
+		return incrementReactive(Collections.singletonList(incrementModel(todo.personId, todo.category, todo.done, -1L)));
+	}
+
+	public Uni<Void> onUpdated(String oldPersonId, Category oldCategory, boolean oldDone, ReactiveTodo todo) {
+		if (Objects.equals(oldPersonId, todo.personId) && oldCategory == todo.category && oldDone == todo.done) {
+			return Uni.createFrom().nullItem();
+		}
+		return incrementReactive(Arrays.asList(incrementModel(oldPersonId, oldCategory, oldDone, -1L),
+				incrementModel(todo.personId, todo.category, todo.done, 1L)));
+	}
+
+	/**
+	 * Totals per category served from the counters, only valid for filters without a plannedEndDate range.
+	 */
+	public Map<Category, Long> countByCategory(TodoFilter filter) {
+		Map<Category, Long> totals = new TreeMap<>();
+		collection().aggregate(countByCategoryPipeline(filter)).forEach(d -> addTotal(totals, d));
+		return totals;
+	}
+
+	/**
+	 * Non-blocking variant of {@link #countByCategory(TodoFilter)}.
+	 */
+	public Uni<Map<Category, Long>> countByCategoryReactive(TodoFilter filter) {
+		return ReactiveTodo.mongoDatabase().getCollection(COLLECTION)
+				.aggregate(countByCategoryPipeline(filter))
+				.collectItems()
+				.in(TreeMap::new, TodoCategoryCounters::addTotal);
+	}
+
+	private static List<Bson> countByCategoryPipeline(TodoFilter filter) {
+		List<Bson> filters = new ArrayList<>();
+		if (filter.getDone() != null) {
+			filters.add(Filters.eq("_id.done", filter.getDone()));
+		}
+		if (StringUtils.isNotBlank(filter.getPersonId())) {
+			filters.add(Filters.eq("_id.personId", filter.getPersonId()));
+		}
+		Set<Category> categories = filter.getCategories();
+		if (!categories.isEmpty()) {
+			filters.add(Filters.in("_id.category", categories.stream().map(Category::name).toArray(String[]::new)));
+		}
+		return Arrays.asList(
+				Aggregates.match(filters.isEmpty() ? new Document() : Filters.and(filters)),
+				Aggregates.group("$_id.category", Accumulators.sum("total", "$total")));
+	}
+
+	private static void addTotal(Map<Category, Long> totals, Document d) {
+		long total = d.get("total", Number.class).longValue();
+		if (total > 0) {
+			totals.put(Category.valueOf(d.getString("_id")), total);
+		}
+	}
+
+	/**
+	 * Brings the counters in line with the todos collection without replacing it. The counters are read first, then
+	 * totals are aggregated from todos and each differing counter is corrected with an $inc that only applies while it
+	 * still holds the value read. A counter changed meanwhile, by a write or by the reconcile of another instance, is
+	 * left to the next run, so concurrent runs never apply a correction twice and writes never wait.
+	 *
+	 * @return number of counters corrected
+	 */
+	public long reconcile() {
+		long start = System.currentTimeMillis();
+		Map<Document, Long> current = new HashMap<>();
+		collection().find().forEach(d -> current.put(d.get("_id", Document.class), d.get("total", Number.class).longValue()));
+		Map<Document, Long> expected = new HashMap<>();
+		MongoCollection<Todo> todos = Todo.mongoCollection();
+		todos.aggregate(Collections.singletonList(
+				Aggregates.group(new Document("personId", "$personId")
+								.append("category", "$category")
+								.append("done", "$done"),
+						Accumulators.sum("total", 1))), Document.class)
+				.forEach(d -> expected.put(d.get("_id", Document.class), d.get("total", Number.class).longValue()));
+
+		Set<Document> ids = new HashSet<>(current.keySet());
+		ids.addAll(expected.keySet());
+		List<WriteModel<Document>> corrections = new ArrayList<>();
+		for (Document id : ids) {
+			long total = expected.getOrDefault(id, 0L);
+			Long counter = current.get(id);
+			if (counter == null) {
+				// Fails on the duplicate _id when an $inc or another reconcile created the counter meanwhile
+				corrections.add(new InsertOneModel<>(new Document("_id", id).append("total", total)));
+			} else if (counter != total) {
+				corrections.add(new UpdateOneModel<>(Filters.and(Filters.eq("_id", id), Filters.eq("total", counter)),
+						Updates.inc("total", total - counter)));
+			}
+		}
+		long corrected = 0;
+		if (!corrections.isEmpty()) {
+			try {
+				BulkWriteResult result = collection().bulkWrite(corrections, new BulkWriteOptions().ordered(false));
+				corrected = result.getInsertedCount() + result.getModifiedCount();
+			} catch (MongoBulkWriteException e) {
+				corrected = e.getWriteResult().getInsertedCount() + e.getWriteResult().getModifiedCount();
+			}
+		}
+		log.info("Reconciled {} in {}ms, corrected {} of {} drifted counters", COLLECTION,
+				System.currentTimeMillis() - start, corrected, corrections.size());
+		return corrected;
+	}
+
+	void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 600) StartupEvent ev) {
+		if (enabled) {
+			reconcile();
+		}
+	}
+
+	@Scheduled(every = "{configuration.counters.reconcileEvery}")
+	void scheduledReconcile() {
+		if (enabled && reconcileEnabled) {
+			try {
+				reconcile();
+			} catch (Exception e) {
+				log.warn("Error on method scheduledReconcile", e);
+			}
+		}
+	}
+
+	private void increment(String personId, Category category, boolean done, long delta) {
+		if (enabled) {
+			try {
+				collection().updateOne(Filters.eq("_id", counterId(personId, category, done)),
+						Updates.inc("total", delta),
+						new UpdateOptions().upsert(true));
+			} catch (Exception e) {
+				log.warn("Error on method increment, counters will be repaired on next reconcile", e);
+			}
+		}
+	}
+
+	private Uni<Void> incrementReactive(List<WriteModel<Document>> increments) {
+		if (!enabled) {
+			return Uni.createFrom().nullItem();
+		}
+		return ReactiveTodo.mongoDatabase().getCollection(COLLECTION)
+				.bulkWrite(increments, new BulkWriteOptions().ordered(false))
+				.onItem().ignore().andContinueWithNull()
+				.onFailure().recoverWithItem(e -> {
+					log.warn("Error on method incrementReactive, counters will be repaired on next reconcile", e);
+					return null;
+				});
+	}
+
+	private static WriteModel<Document> incrementModel(String personId, Category category, boolean done, long delta) {
+		return new UpdateOneModel<>(Filters.eq("_id", counterId(personId, category, done)),
+				Updates.inc("total", delta),
+				new UpdateOptions().upsert(true));
+	}
+
+	private static Document counterId(String personId, Category category, boolean done) {
+		return new Document("personId", personId)
+				.append("category", category != null ? category.name() : null)
+				.append("done", done);
+	}
+
+	private MongoCollection<Document> collection() {
+		return Todo.mongoDatabase().getCollection(COLLECTION);
+	}
+}
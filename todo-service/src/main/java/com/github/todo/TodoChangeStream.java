@@ -0,0 +1,111 @@
+package com.github.todo;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single change stream cursor on todos shared by all listeners, opened with the first listener and reopened after
+ * errors. Full documents are looked up on updates and decoded through {@link TodoDtoCodec}. Change streams need a
+ * replica set.
+ */
+@ApplicationScoped
+public class TodoChangeStream {
+	private static final Logger log = LoggerFactory.getLogger(TodoChangeStream.class);
+
+	private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile boolean running;
+
+	private volatile boolean open;
+
+	private Thread watcher;
+
+	/**
+	 * Listeners added while the stream is already open get {@link Listener#onOpen()} right away.
+	 */
+	public synchronized void addListener(Listener listener) {
+		listeners.add(listener);
+		if (open) {
+			listener.onOpen();
+		}
+		if (watcher == null) {
+			running = true;
+			watcher = new Thread(this::watch, "todo-change-stream");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+	}
+
+	@PreDestroy
+	synchronized void destroy() {
+		running = false;
+		if (watcher != null) {
+			watcher.interrupt();
+		}
+	}
+
+	private void watch() {
+		while (running) {
+			MongoCollection<TodoDto> collection = Todo.mongoCollection().withDocumentClass(TodoDto.class);
+			try (MongoChangeStreamCursor<ChangeStreamDocument<TodoDto>> cursor = collection.watch(TodoDto.class)
+					.fullDocument(FullDocument.UPDATE_LOOKUP)
+					.maxAwaitTime(1, TimeUnit.SECONDS)
+					.cursor()) {
+				log.info("Watching todos for changes");
+				open = true;
+				listeners.forEach(Listener::onOpen);
+				while (running) {
+					ChangeStreamDocument<TodoDto> change = cursor.tryNext();
+					if (change != null) {
+						for (Listener listener : listeners) {
+							listener.onChange(change);
+						}
+					}
+				}
+			} catch (Exception e) {
+				if (running) {
+					log.warn("Error on method watch, reopening the change stream", e);
+				}
+			} finally {
+				open = false;
+				listeners.forEach(Listener::onClose);
+			}
+			try {
+				Thread.sleep(RECONNECT_DELAY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Callbacks run on the watcher thread, an exception closes and reopens the stream for every listener.
+	 */
+	public interface Listener {
+		/**
+		 * The stream was (re)opened, changes made while it was closed are not replayed. May be called twice for a
+		 * listener added while the stream opens.
+		 */
+		default void onOpen() {
+		}
+
+		void onChange(ChangeStreamDocument<TodoDto> change);
+
+		default void onClose() {
+		}
+	}
+}
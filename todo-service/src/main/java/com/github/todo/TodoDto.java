@@ -1,11 +1,13 @@
 package com.github.todo;
 
 import java.time.Instant;
-import java.util.concurrent.TimeUnit;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.bson.types.ObjectId;
+
 public class TodoDto {
 	@NotBlank
 	private String name;
@@ -13,16 +15,27 @@ public class TodoDto {
 	private String personId;
 	private String personName;
 	private Boolean done;
-	@NotNull
-	private Instant createdDate = Instant.now();
-	@NotNull
-	private Instant plannedEndDate = Instant.now().plusSeconds(TimeUnit.DAYS.toSeconds(1));
+	/**
+	 * Null on create defaults to now, see {@link Todo#Todo()}.
+	 */
+	private Instant createdDate;
+	/**
+	 * Null on create defaults to a day after createdDate, see {@link Todo#Todo()}.
+	 */
+	private Instant plannedEndDate;
 	@NotNull
 	private Category category;
+	/**
+	 * Not serialized, back the next page cursor and the ETag of list reads.
+	 */
+	@JsonIgnore
+	ObjectId id;
+	@JsonIgnore
+	long version;
 
 	TodoDto() {}
 
-	TodoDto(@NotBlank String name, @NotBlank String personId, @NotBlank String personName, Boolean done, @NotNull Instant createdDate, @NotNull Instant plannedEndDate, @NotNull Category category) {
+	TodoDto(@NotBlank String name, @NotBlank String personId, @NotBlank String personName, Boolean done, Instant createdDate, Instant plannedEndDate, @NotNull Category category) {
 		this.name = name;
 		this.personId = personId;
 		this.personName = personName;
@@ -88,6 +101,22 @@ public class TodoDto {
 		this.category = category;
 	}
 
+	public ObjectId getId() {
+		return id;
+	}
+
+	public void setId(ObjectId id) {
+		this.id = id;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	@Override
 	public String toString() {
 		return "TodoDto{" +
@@ -0,0 +1,113 @@
+package com.github.todo;
+
+import java.time.Instant;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Decodes todo documents straight into {@link TodoDto}, skipping the {@link Todo} entity and the mapper on read
+ * paths. Unknown and null fields are skipped, _id and version are kept on the DTO for cursors and ETags. Encoding
+ * writes the same fields, null ones omitted, so a TodoDto can also be used as a filter value or inserted.
+ */
+public class TodoDtoCodec implements Codec<TodoDto> {
+	@Override
+	public TodoDto decode(BsonReader reader, DecoderContext decoderContext) {
+		TodoDto todoDto = new TodoDto();
+		todoDto.setDone(Boolean.FALSE);
+		reader.readStartDocument();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			String field = reader.readName();
+			if (reader.getCurrentBsonType() == BsonType.NULL) {
+				reader.readNull();
+				continue;
+			}
+			switch (field) {
+				case "_id":
+					todoDto.id = reader.readObjectId();
+					break;
+				case "name":
+					todoDto.setName(reader.readString());
+					break;
+				case "personId":
+					todoDto.setPersonId(reader.readString());
+					break;
+				case "personName":
+					todoDto.setPersonName(reader.readString());
+					break;
+				case "done":
+					todoDto.setDone(reader.readBoolean());
+					break;
+				case "createdDate":
+					todoDto.setCreatedDate(Instant.ofEpochMilli(reader.readDateTime()));
+					break;
+				case "plannedEndDate":
+					todoDto.setPlannedEndDate(Instant.ofEpochMilli(reader.readDateTime()));
+					break;
+				case "category":
+					todoDto.setCategory(Category.valueOf(reader.readString()));
+					break;
+				case "version":
+					todoDto.version = readLong(reader);
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+		reader.readEndDocument();
+		return todoDto;
+	}
+
+	@Override
+	public void encode(BsonWriter writer, TodoDto value, EncoderContext encoderContext) {
+		writer.writeStartDocument();
+		if (value.id != null) {
+			writer.writeObjectId("_id", value.id);
+		}
+		writeString(writer, "name", value.getName());
+		writeString(writer, "personId", value.getPersonId());
+		writeString(writer, "personName", value.getPersonName());
+		if (value.getDone() != null) {
+			writer.writeBoolean("done", value.getDone());
+		}
+		writeDateTime(writer, "createdDate", value.getCreatedDate());
+		writeDateTime(writer, "plannedEndDate", value.getPlannedEndDate());
+		if (value.getCategory() != null) {
+			writer.writeString("category", value.getCategory().name());
+		}
+		writer.writeInt64("version", value.version);
+		writer.writeEndDocument();
+	}
+
+	@Override
+	public Class<TodoDto> getEncoderClass() {
+		return TodoDto.class;
+	}
+
+	private static void writeString(BsonWriter writer, String name, String value) {
+		if (value != null) {
+			writer.writeString(name, value);
+		}
+	}
+
+	private static void writeDateTime(BsonWriter writer, String name, Instant value) {
+		if (value != null) {
+			writer.writeDateTime(name, value.toEpochMilli());
+		}
+	}
+
+	private static long readLong(BsonReader reader) {
+		switch (reader.getCurrentBsonType()) {
+			case INT32:
+				return reader.readInt32();
+			case DOUBLE:
+				return (long) reader.readDouble();
+			default:
+				return reader.readInt64();
+		}
+	}
+}
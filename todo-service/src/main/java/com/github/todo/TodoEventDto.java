@@ -0,0 +1,60 @@
+package com.github.todo;
+
+/**
+ * Change of a todo pushed to SSE subscribers. RESET tells clients that changes may have been missed, e.g. after
+ * dropped events or a reopened change stream, and that they should reload their todos.
+ */
+public class TodoEventDto {
+	public enum Type {
+		CREATED,
+		UPDATED,
+		DELETED,
+		RESET
+	}
+
+	private Type type;
+	private String id;
+	private Long version;
+	private TodoDto todo;
+
+	TodoEventDto() {}
+
+	TodoEventDto(Type type, String id, Long version, TodoDto todo) {
+		this.type = type;
+		this.id = id;
+		this.version = version;
+		this.todo = todo;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public TodoDto getTodo() {
+		return todo;
+	}
+
+	public void setTodo(TodoDto todo) {
+		this.todo = todo;
+	}
+}
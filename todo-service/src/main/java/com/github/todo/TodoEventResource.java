@@ -0,0 +1,42 @@
+package com.github.todo;
+
+import javax.annotation.security.RolesAllowed;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Server-sent events of todo changes, see {@link TodoEvents}. Admins get the changes of all todos, other users
+ * only of their own.
+ */
+@Path("/api/todos/events")
+@RequestScoped
+@RegisterForReflection
+public class TodoEventResource {
+    @Inject
+    TodoEvents todoEvents;
+
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RolesAllowed({"todo:read", "admin"})
+    public void events(@Context SseEventSink sink, @Context Sse sse, @Context SecurityContext ctx) {
+        if (!todoEvents.isEnabled()) {
+            throw new NotFoundException();
+        }
+        String personId = ctx.isUserInRole("admin") ? null : ctx.getUserPrincipal().getName();
+        if (!todoEvents.subscribe(sink, sse, personId)) {
+            throw new ServiceUnavailableException();
+        }
+    }
+}
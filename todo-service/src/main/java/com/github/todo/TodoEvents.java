@@ -0,0 +1,290 @@
+package com.github.todo;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fans the changes of {@link TodoChangeStream} out to SSE subscribers, each one only sees the todos of its person
+ * unless it subscribed for all. Every subscriber has a buffer of configuration.todoEvents.bufferSize events drained
+ * by a shared sender pool, so a slow client never blocks the change stream. When a buffer is full the overflow
+ * policy either drops the buffered events and queues a RESET (drop) or disconnects the client (disconnect).
+ * <p>
+ * Creates and updates are filtered on the personId of the changed document. Change streams carry no pre-image, so
+ * deletes only hold the id; their owner is looked up in one shared map of id to personId, bounded by
+ * configuration.todoEvents.ownerCacheSize and filled from the creates and updates seen. A delete whose owner is not
+ * known, a todo unchanged since startup or evicted, is only sent to subscribers for all todos.
+ */
+@ApplicationScoped
+public class TodoEvents implements TodoChangeStream.Listener {
+	private static final Logger log = LoggerFactory.getLogger(TodoEvents.class);
+
+	private static final TodoEventDto HEARTBEAT = new TodoEventDto();
+
+	@ConfigProperty(name = "configuration.todoEvents.enabled", defaultValue = "false")
+	boolean enabled;
+
+	@ConfigProperty(name = "configuration.todoEvents.bufferSize", defaultValue = "256")
+	int bufferSize;
+
+	@ConfigProperty(name = "configuration.todoEvents.overflow", defaultValue = "drop")
+	String overflow;
+
+	@ConfigProperty(name = "configuration.todoEvents.maxSubscribers", defaultValue = "1000")
+	int maxSubscribers;
+
+	@ConfigProperty(name = "configuration.todoEvents.senderThreads", defaultValue = "4")
+	int senderThreads;
+
+	@ConfigProperty(name = "configuration.todoEvents.ownerCacheSize", defaultValue = "100000")
+	long ownerCacheSize;
+
+	@Inject
+	TodoChangeStream todoChangeStream;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	private ExecutorService sender;
+
+	private Cache<String, String> owners;
+
+	private Counter dropped;
+
+	private Counter disconnected;
+
+	@PostConstruct
+	void init() {
+		sender = Executors.newFixedThreadPool(senderThreads, r -> {
+			Thread thread = new Thread(r, "todo-events-sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+		owners = Caffeine.newBuilder()
+				.maximumSize(ownerCacheSize)
+				.build();
+		metricRegistry.register(Metadata.builder()
+				.withName("todoEventsSubscribers")
+				.withDescription("Number of connected SSE subscribers")
+				.withType(MetricType.GAUGE)
+				.withUnit(MetricUnits.NONE)
+				.build(), (Gauge<Integer>) subscribers::size);
+		dropped = metricRegistry.counter(Metadata.builder()
+				.withName("todoEventsDropped")
+				.withDescription("Number of events dropped from full subscriber buffers")
+				.withType(MetricType.COUNTER)
+				.withUnit(MetricUnits.NONE)
+				.build());
+		disconnected = metricRegistry.counter(Metadata.builder()
+				.withName("todoEventsSlowConsumersDisconnected")
+				.withDescription("Number of subscribers disconnected because their buffer was full")
+				.withType(MetricType.COUNTER)
+				.withUnit(MetricUnits.NONE)
+				.build());
+	}
+
+	void onStart(@Observes StartupEvent ev) {
+		if (enabled) {
+			todoChangeStream.addListener(this);
+		}
+	}
+
+	@PreDestroy
+	void destroy() {
+		subscribers.forEach(Subscriber::close);
+		sender.shutdownNow();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param personId - person whose todos are sent or null for all todos
+	 * @return false when configuration.todoEvents.maxSubscribers are already connected
+	 */
+	public boolean subscribe(SseEventSink sink, Sse sse, String personId) {
+		if (subscribers.size() >= maxSubscribers) {
+			return false;
+		}
+		subscribers.add(new Subscriber(sink, sse, personId));
+		return true;
+	}
+
+	/**
+	 * Changes made while the stream was closed are lost, clients are told to reload.
+	 */
+	@Override
+	public void onOpen() {
+		TodoEventDto reset = new TodoEventDto(TodoEventDto.Type.RESET, null, null, null);
+		subscribers.forEach(s -> s.offer(reset));
+	}
+
+	@Override
+	public void onChange(ChangeStreamDocument<TodoDto> change) {
+		TodoDto todo = change.getFullDocument();
+		String id = change.getDocumentKey() != null ? change.getDocumentKey().getObjectId("_id").getValue().toHexString() : null;
+		switch (change.getOperationType()) {
+			case INSERT:
+			case UPDATE:
+			case REPLACE:
+				// The looked up document of an update is gone when it was deleted meanwhile, its delete follows
+				if (todo != null && id != null) {
+					// Also kept without subscribers, so deletes reach the owners that subscribe later
+					if (todo.getPersonId() != null) {
+						owners.put(id, todo.getPersonId());
+					} else {
+						owners.invalidate(id);
+					}
+					TodoEventDto event = new TodoEventDto(change.getOperationType() == OperationType.INSERT
+							? TodoEventDto.Type.CREATED : TodoEventDto.Type.UPDATED, id, todo.version, todo);
+					subscribers.stream()
+							.filter(s -> s.accepts(todo.getPersonId()))
+							.forEach(s -> s.offer(event));
+				}
+				break;
+			case DELETE:
+				String owner = id != null ? owners.getIfPresent(id) : null;
+				if (id != null) {
+					owners.invalidate(id);
+				}
+				TodoEventDto deleted = new TodoEventDto(TodoEventDto.Type.DELETED, id, null, null);
+				subscribers.stream()
+						.filter(s -> s.personId == null || (owner != null && s.accepts(owner)))
+						.forEach(s -> s.offer(deleted));
+				break;
+			default:
+				// drop, rename or invalidate of the collection
+				TodoEventDto reset = new TodoEventDto(TodoEventDto.Type.RESET, null, null, null);
+				subscribers.forEach(s -> s.offer(reset));
+		}
+	}
+
+	/**
+	 * Keeps idle connections open through proxies and removes subscribers whose client went away.
+	 */
+	@Scheduled(every = "{configuration.todoEvents.heartbeatEvery}")
+	void heartbeat() {
+		subscribers.forEach(s -> {
+			if (s.sink.isClosed()) {
+				s.close();
+			} else {
+				s.heartbeat();
+			}
+		});
+	}
+
+	private final class Subscriber {
+		private final SseEventSink sink;
+		private final Sse sse;
+		private final String personId;
+		private final BlockingQueue<TodoEventDto> buffer = new ArrayBlockingQueue<>(bufferSize);
+		private final AtomicBoolean sending = new AtomicBoolean();
+
+		Subscriber(SseEventSink sink, Sse sse, String personId) {
+			this.sink = sink;
+			this.sse = sse;
+			this.personId = personId;
+		}
+
+		boolean accepts(String personId) {
+			return this.personId == null || this.personId.equals(personId);
+		}
+
+		void offer(TodoEventDto event) {
+			if (!buffer.offer(event)) {
+				if ("disconnect".equalsIgnoreCase(overflow)) {
+					disconnected.inc();
+					close();
+					return;
+				}
+				// The client missed changes either way, a single RESET replaces the backlog
+				dropped.inc(buffer.size() + 1L);
+				buffer.clear();
+				buffer.offer(new TodoEventDto(TodoEventDto.Type.RESET, null, null, null));
+			}
+			drain();
+		}
+
+		void heartbeat() {
+			if (buffer.offer(HEARTBEAT)) {
+				drain();
+			}
+		}
+
+		private void drain() {
+			if (sending.compareAndSet(false, true)) {
+				sender.execute(this::sendNext);
+			}
+		}
+
+		private void sendNext() {
+			TodoEventDto event = buffer.poll();
+			if (event == null) {
+				sending.set(false);
+				// An offer may have happened between poll and reset of the flag
+				if (!buffer.isEmpty()) {
+					drain();
+				}
+				return;
+			}
+			if (sink.isClosed()) {
+				close();
+				return;
+			}
+			OutboundSseEvent outboundEvent = event == HEARTBEAT
+					? sse.newEventBuilder().comment("heartbeat").build()
+					: sse.newEventBuilder().mediaType(MediaType.APPLICATION_JSON_TYPE).data(TodoEventDto.class, event).build();
+			sink.send(outboundEvent).whenCompleteAsync((v, e) -> {
+				if (e != null) {
+					log.debug("Error on method sendNext, closing subscriber", e);
+					close();
+				} else {
+					sendNext();
+				}
+			}, sender);
+		}
+
+		void close() {
+			subscribers.remove(this);
+			buffer.clear();
+			try {
+				sink.close();
+			} catch (Exception e) {
+				log.debug("Error on method close", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.QueryParam;
+
+import com.mongodb.client.model.Filters;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+/**
+ * Query parameters shared by the dashboard queries, translated to exact matches and ranges that can use
+ * the indexes declared in {@link TodoIndexes}.
+ */
+public class TodoFilter {
+	/**
+	 * Upper bound of plannedEndDate, kept for compatibility with plannedEndDateTo.
+	 */
+	@QueryParam("plannedEndDate")
+	Date plannedEndDate;
+
+	@QueryParam("plannedEndDateFrom")
+	Date plannedEndDateFrom;
+
+	@QueryParam("plannedEndDateTo")
+	Date plannedEndDateTo;
+
+	@QueryParam("done")
+	Boolean done;
+
+	@QueryParam("personId")
+	String personId;
+
+	/**
+	 * Comma-separated list of {@link Category} names.
+	 */
+	@QueryParam("categoryName")
+	String categoryName;
+
+	/**
+	 * Also read todos moved to the archive collection by {@link TodoArchiver}.
+	 */
+	@QueryParam("includeArchived")
+	boolean includeArchived;
+
+	public Boolean getDone() {
+		return done;
+	}
+
+	public String getPersonId() {
+		return personId;
+	}
+
+	public boolean isIncludeArchived() {
+		return includeArchived;
+	}
+
+	public boolean hasPlannedEndDateRange() {
+		return plannedEndDate != null || plannedEndDateFrom != null || plannedEndDateTo != null;
+	}
+
+	/**
+	 * @return values of all parameters, for use in cache keys
+	 */
+	public List<Object> toKey() {
+		return Arrays.asList(plannedEndDate, plannedEndDateFrom, plannedEndDateTo, done, personId, getCategories(), includeArchived);
+	}
+
+	public Set<Category> getCategories() {
+		Set<Category> categories = EnumSet.noneOf(Category.class);
+		if (StringUtils.isNotBlank(categoryName)) {
+			for (String name : categoryName.split(",")) {
+				if (StringUtils.isNotBlank(name)) {
+					try {
+						categories.add(Category.valueOf(name.trim().toUpperCase()));
+					} catch (IllegalArgumentException e) {
+						throw new BadRequestException(String.format("Invalid categoryName: %s - allowed values: %s",
+								name.trim(), Arrays.toString(Category.values())));
+					}
+				}
+			}
+		}
+		return categories;
+	}
+
+	public Bson toBson() {
+		List<Bson> filters = new ArrayList<>();
+		if (done != null) {
+			filters.add(Filters.eq("done", done));
+		}
+		if (plannedEndDateFrom != null) {
+			filters.add(Filters.gte("plannedEndDate", plannedEndDateFrom));
+		}
+		Date to = plannedEndDateTo != null ? plannedEndDateTo : plannedEndDate;
+		if (to != null) {
+			filters.add(Filters.lte("plannedEndDate", to));
+		}
+		if (StringUtils.isNotBlank(personId)) {
+			filters.add(Filters.eq("personId", personId));
+		}
+		Set<Category> categories = getCategories();
+		if (categories.size() == 1) {
+			filters.add(Filters.eq("category", categories.iterator().next().name()));
+		} else if (!categories.isEmpty()) {
+			filters.add(Filters.in("category", categories.stream().map(Category::name).toArray(String[]::new)));
+		}
+		return filters.isEmpty() ? new Document() : Filters.and(filters);
+	}
+}
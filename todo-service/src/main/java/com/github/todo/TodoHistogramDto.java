@@ -0,0 +1,101 @@
+package com.github.todo;
+
+import java.util.List;
+
+/**
+ * Counts of todos per time bucket, each series holds one count per entry of buckets in the same order.
+ */
+public class TodoHistogramDto {
+	public enum Granularity {
+		DAY("%Y-%m-%d"),
+		WEEK("%G-W%V"),
+		MONTH("%Y-%m");
+
+		private final String format;
+
+		Granularity(String format) {
+			this.format = format;
+		}
+
+		/**
+		 * @return $dateToString format of the bucket labels, weeks are ISO weeks
+		 */
+		public String getFormat() {
+			return format;
+		}
+	}
+
+	public static class Series {
+		private Category category;
+		private Boolean done;
+		private long[] counts;
+
+		Series() {}
+
+		Series(Category category, Boolean done, long[] counts) {
+			this.category = category;
+			this.done = done;
+			this.counts = counts;
+		}
+
+		public Category getCategory() {
+			return category;
+		}
+
+		public void setCategory(Category category) {
+			this.category = category;
+		}
+
+		public Boolean getDone() {
+			return done;
+		}
+
+		public void setDone(Boolean done) {
+			this.done = done;
+		}
+
+		public long[] getCounts() {
+			return counts;
+		}
+
+		public void setCounts(long[] counts) {
+			this.counts = counts;
+		}
+	}
+
+	private Granularity granularity;
+	private List<String> buckets;
+	private List<Series> series;
+
+	TodoHistogramDto() {}
+
+	TodoHistogramDto(Granularity granularity, List<String> buckets, List<Series> series) {
+		this.granularity = granularity;
+		this.buckets = buckets;
+		this.series = series;
+	}
+
+	public Granularity getGranularity() {
+		return granularity;
+	}
+
+	public void setGranularity(Granularity granularity) {
+		this.granularity = granularity;
+	}
+
+	public List<String> getBuckets() {
+		return buckets;
+	}
+
+	public void setBuckets(List<String> buckets) {
+		this.buckets = buckets;
+	}
+
+	public List<Series> getSeries() {
+		return series;
+	}
+
+	public void setSeries(List<Series> series) {
+		this.series = series;
+	}
+}
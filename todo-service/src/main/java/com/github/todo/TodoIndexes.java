@@ -0,0 +1,144 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import io.quarkus.runtime.StartupEvent;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Declares the indexes needed by the queries in {@link Todo} and either creates them at startup (mode create)
+ * or fails startup when any of them is missing (mode verify), on todos and on {@link Todo#ARCHIVE_COLLECTION}.
+ */
+@ApplicationScoped
+public class TodoIndexes {
+	private static final Logger log = LoggerFactory.getLogger(TodoIndexes.class);
+
+	private static final long INDEX_STATS_MAX_AGE_MILLIS = 10_000;
+
+	static final List<IndexModel> INDEXES = Collections.unmodifiableList(Arrays.asList(
+			// findTodosByPersonId keyset pagination
+			index(Indexes.ascending("personId", "_id"), "personId_1__id_1"),
+			// findAllByCategory filter combinations, equality fields first and plannedEndDate range last
+			index(Indexes.ascending("personId", "category", "done", "plannedEndDate"), "personId_1_category_1_done_1_plannedEndDate_1"),
+			index(Indexes.ascending("category", "done", "plannedEndDate"), "category_1_done_1_plannedEndDate_1"),
+			index(Indexes.ascending("done", "plannedEndDate"), "done_1_plannedEndDate_1")));
+
+	@ConfigProperty(name = "configuration.indexes.mode", defaultValue = "create")
+	String mode;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	private volatile Map<String, Long> indexAccesses = Collections.emptyMap();
+
+	private volatile long indexAccessesTimestamp;
+
+	void onStart(@Observes StartupEvent ev) {
+		if ("create".equalsIgnoreCase(mode)) {
+			create();
+		} else if ("verify".equalsIgnoreCase(mode)) {
+			verify();
+		} else {
+			log.info("Index provisioning disabled: {}", mode);
+		}
+		INDEXES.forEach(i -> registerIndexAccessesGauge(i.getOptions().getName()));
+	}
+
+	void create() {
+		for (MongoCollection<Document> collection : collections()) {
+			List<String> names = collection.createIndexes(INDEXES);
+			log.info("Created indexes on {}: {}", collection.getNamespace().getCollectionName(), names);
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException when an index is missing on todos or on the archive
+	 */
+	void verify() {
+		for (MongoCollection<Document> collection : collections()) {
+			String collectionName = collection.getNamespace().getCollectionName();
+			List<String> existingIndexes = collection.listIndexes()
+					.map(d -> d.getString("name"))
+					.into(new ArrayList<>());
+			List<String> missingIndexes = INDEXES.stream()
+					.map(i -> i.getOptions().getName())
+					.filter(name -> !existingIndexes.contains(name))
+					.collect(Collectors.toList());
+			if (!missingIndexes.isEmpty()) {
+				throw new IllegalStateException(String.format("Missing indexes on %s: %s", collectionName, missingIndexes));
+			}
+			log.info("Verified indexes on {}: {}", collectionName, existingIndexes);
+		}
+	}
+
+	/**
+	 * Reads with includeArchived run the same queries on the archive, so it needs the same indexes.
+	 */
+	private static List<MongoCollection<Document>> collections() {
+		return Arrays.asList(Todo.mongoCollection().withDocumentClass(Document.class),
+				Todo.mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION));
+	}
+
+	private void registerIndexAccessesGauge(String indexName) {
+		Metadata metadata = Metadata.builder()
+				.withName("todoIndexAccesses")
+				.withDescription("Number of operations that used the index since the server started")
+				.withType(MetricType.GAUGE)
+				.withUnit(MetricUnits.NONE)
+				.build();
+		metricRegistry.register(metadata, (Gauge<Long>) () -> getIndexAccesses().getOrDefault(indexName, 0L),
+				new Tag("index", indexName));
+	}
+
+	private Map<String, Long> getIndexAccesses() {
+		if (System.currentTimeMillis() - indexAccessesTimestamp > INDEX_STATS_MAX_AGE_MILLIS) {
+			try {
+				indexAccesses = readIndexAccesses();
+			} catch (Exception e) {
+				log.warn("Error on method getIndexAccesses", e);
+			}
+			indexAccessesTimestamp = System.currentTimeMillis();
+		}
+		return indexAccesses;
+	}
+
+	/**
+	 * Index name to number of operations that used it on todos, from $indexStats.
+	 */
+	Map<String, Long> readIndexAccesses() {
+		Map<String, Long> accesses = new HashMap<>();
+		MongoCollection<Todo> collection = Todo.mongoCollection();
+		collection.aggregate(Collections.singletonList(new Document("$indexStats", new Document())), Document.class)
+				.forEach(d -> accesses.put(d.getString("name"),
+						d.get("accesses", Document.class).get("ops", Number.class).longValue()));
+		return accesses;
+	}
+
+	private static IndexModel index(Bson keys, String name) {
+		return new IndexModel(keys, new IndexOptions().name(name).background(true));
+	}
+}
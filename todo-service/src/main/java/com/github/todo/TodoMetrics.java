@@ -0,0 +1,98 @@
+package com.github.todo;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+
+/**
+ * Per-endpoint breakdown of request latency into Mongo, person-service and serialization time, plus cumulative
+ * counters of requests that finished within each SLO threshold (configuration.metrics.sloMillis).
+ */
+@ApplicationScoped
+public class TodoMetrics {
+	static final String MONGO = "mongo";
+	static final String PERSON_SERVICE = "personService";
+	static final String SERIALIZATION = "serialization";
+
+	private static final Metadata PHASE_TIME = Metadata.builder()
+			.withName("todoPhaseTime")
+			.withDescription("Time spent in each phase of a request")
+			.withType(MetricType.TIMER)
+			.withUnit(MetricUnits.NANOSECONDS)
+			.build();
+
+	private static final Metadata REQUESTS = Metadata.builder()
+			.withName("todoRequests")
+			.withDescription("Number of requests")
+			.withType(MetricType.COUNTER)
+			.withUnit(MetricUnits.NONE)
+			.build();
+
+	private static final Metadata REQUESTS_WITHIN_SLO = Metadata.builder()
+			.withName("todoRequestsWithinSlo")
+			.withDescription("Number of requests that took at most le milliseconds")
+			.withType(MetricType.COUNTER)
+			.withUnit(MetricUnits.NONE)
+			.build();
+
+	private static final Metadata FALLBACKS = Metadata.builder()
+			.withName("todoFallbacks")
+			.withDescription("Number of requests answered by a fallback method")
+			.withType(MetricType.COUNTER)
+			.withUnit(MetricUnits.NONE)
+			.build();
+
+	@ConfigProperty(name = "configuration.metrics.sloMillis", defaultValue = "50,100,250,500,1000")
+	List<Long> sloMillis;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	public <T> T time(String phase, String endpoint, Supplier<T> supplier) {
+		long start = System.nanoTime();
+		try {
+			return supplier.get();
+		} finally {
+			recordPhase(phase, endpoint, System.nanoTime() - start);
+		}
+	}
+
+	public void run(String phase, String endpoint, Runnable runnable) {
+		long start = System.nanoTime();
+		try {
+			runnable.run();
+		} finally {
+			recordPhase(phase, endpoint, System.nanoTime() - start);
+		}
+	}
+
+	public void recordPhase(String phase, String endpoint, long nanos) {
+		metricRegistry.timer(PHASE_TIME, new Tag("phase", phase), new Tag("endpoint", endpoint))
+				.update(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordRequest(String endpoint, long nanos) {
+		Tag endpointTag = new Tag("endpoint", endpoint);
+		metricRegistry.counter(REQUESTS, endpointTag).inc();
+		long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+		for (Long slo : sloMillis) {
+			if (millis <= slo) {
+				metricRegistry.counter(REQUESTS_WITHIN_SLO, endpointTag, new Tag("le", String.valueOf(slo))).inc();
+			}
+		}
+	}
+
+	public void recordFallback(String endpoint) {
+		metricRegistry.counter(FALLBACKS, new Tag("endpoint", endpoint)).inc();
+	}
+}
@@ -0,0 +1,68 @@
+package com.github.todo;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Records the SLO counters of every request to {@link TodoResource} and the time spent serializing its response.
+ * Requests with an entity are counted once the entity is written, so their latency includes serialization.
+ */
+@Provider
+public class TodoMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+	private static final String START_PROPERTY = TodoMetricsFilter.class.getName() + ".start";
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Inject
+	TodoMetrics todoMetrics;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		if (isTodoResource()) {
+			requestContext.setProperty(START_PROPERTY, System.nanoTime());
+		}
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Object start = requestContext.getProperty(START_PROPERTY);
+		if (start != null && !responseContext.hasEntity()) {
+			todoMetrics.recordRequest(resourceInfo.getResourceMethod().getName(), System.nanoTime() - (Long) start);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		if (!isTodoResource()) {
+			context.proceed();
+			return;
+		}
+		String endpoint = resourceInfo.getResourceMethod().getName();
+		long start = System.nanoTime();
+		try {
+			context.proceed();
+		} finally {
+			long end = System.nanoTime();
+			todoMetrics.recordPhase(TodoMetrics.SERIALIZATION, endpoint, end - start);
+			Object requestStart = context.getProperty(START_PROPERTY);
+			if (requestStart != null) {
+				todoMetrics.recordRequest(endpoint, end - (Long) requestStart);
+			}
+		}
+	}
+
+	private boolean isTodoResource() {
+		return resourceInfo.getResourceClass() != null && TodoResource.class.isAssignableFrom(resourceInfo.getResourceClass());
+	}
+}
@@ -0,0 +1,193 @@
+package com.github.todo;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.mongodb.AuthenticationMechanism;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCredential;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.quarkus.arc.AlternativePriority;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.pojo.Conventions;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Replaces the MongoClient of the mongodb-client extension, which offers no way to add a connection pool listener,
+ * with one built from the same quarkus.mongodb.* properties plus {@link MongoPoolMonitor} and {@link TodoDtoCodec}.
+ * Panache entities and {@link AppLifecycleBean} look the client up through CDI and get this one, the reactive client
+ * is left as is.
+ * <p>
+ * Every property of the extension's default client is mapped. Settings given in the connection string are kept
+ * unless the matching property is set, the write concern only falls back to the extension's acknowledged and
+ * journaled default when the connection string has none. wait-queue-multiple has no equivalent in the 4.x driver
+ * and fails startup.
+ */
+@ApplicationScoped
+public class TodoMongoClientProducer {
+	private static final String PREFIX = "quarkus.mongodb.";
+
+	@Inject
+	Config config;
+
+	@ConfigProperty(name = "configuration.mongoPool.maxConnectionIdleTime", defaultValue = "60s")
+	Duration maxConnectionIdleTime;
+
+	@Inject
+	MongoPoolMonitor mongoPoolMonitor;
+
+	@Produces
+	@Singleton
+	@AlternativePriority(1)
+	MongoClient mongoClient() {
+		return MongoClients.create(settings());
+	}
+
+	void close(@Disposes MongoClient mongoClient) {
+		mongoClient.close();
+	}
+
+	MongoClientSettings settings() {
+		if (value("wait-queue-multiple", Integer.class).isPresent()) {
+			throw new IllegalStateException(PREFIX + "wait-queue-multiple is not supported by the MongoDB driver, "
+					+ "bound the wait with " + PREFIX + "wait-queue-timeout instead");
+		}
+		MongoClientSettings.Builder settings = MongoClientSettings.builder();
+		ConnectionString connectionString = value("connection-string", String.class).map(ConnectionString::new).orElse(null);
+		if (connectionString != null) {
+			settings.applyConnectionString(connectionString);
+		}
+		settings.codecRegistry(CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(new TodoDtoCodec()),
+				MongoClientSettings.getDefaultCodecRegistry(),
+				CodecRegistries.fromProviders(PojoCodecProvider.builder()
+						.automatic(true)
+						.conventions(Conventions.DEFAULT_CONVENTIONS)
+						.build())));
+		value("application-name", String.class).ifPresent(settings::applicationName);
+		value("read-preference", String.class).map(ReadPreference::valueOf).ifPresent(settings::readPreference);
+		settings.writeConcern(writeConcern(connectionString));
+		settings.retryWrites(value("write-concern.retry-writes", Boolean.class)
+				.orElse(connectionString != null && Boolean.TRUE.equals(connectionString.getRetryWritesValue())));
+		credential().ifPresent(settings::credential);
+
+		settings.applyToClusterSettings(cluster -> {
+			value("hosts", String[].class).ifPresent(hosts -> cluster.hosts(Arrays.stream(hosts)
+					.map(String::trim)
+					.map(ServerAddress::new)
+					.collect(Collectors.toList())));
+			value("replica-set-name", String.class).ifPresent(cluster::requiredReplicaSetName);
+			millis("server-selection-timeout").ifPresent(ms -> cluster.serverSelectionTimeout(ms, TimeUnit.MILLISECONDS));
+			millis("local-threshold").ifPresent(ms -> cluster.localThreshold(ms, TimeUnit.MILLISECONDS));
+		});
+		settings.applyToSocketSettings(socket -> {
+			millis("connect-timeout").ifPresent(ms -> socket.connectTimeout(ms.intValue(), TimeUnit.MILLISECONDS));
+			millis("read-timeout").ifPresent(ms -> socket.readTimeout(ms.intValue(), TimeUnit.MILLISECONDS));
+		});
+		settings.applyToServerSettings(server ->
+				millis("heartbeat-frequency").ifPresent(ms -> server.heartbeatFrequency(ms, TimeUnit.MILLISECONDS)));
+		settings.applyToSslSettings(ssl -> {
+			value("tls", Boolean.class).ifPresent(ssl::enabled);
+			value("tls-insecure", Boolean.class).ifPresent(ssl::invalidHostNameAllowed);
+		});
+		settings.applyToConnectionPoolSettings(pool -> {
+			value("min-pool-size", Integer.class).ifPresent(pool::minSize);
+			value("max-pool-size", Integer.class).ifPresent(pool::maxSize);
+			Optional<Long> waitQueueTimeout = millis("wait-queue-timeout");
+			(waitQueueTimeout.isPresent() ? waitQueueTimeout : millis("max-wait-time"))
+					.ifPresent(ms -> pool.maxWaitTime(ms, TimeUnit.MILLISECONDS));
+			pool.maxConnectionIdleTime(millis("max-connection-idle-time").orElse(maxConnectionIdleTime.toMillis()), TimeUnit.MILLISECONDS);
+			millis("max-connection-life-time").ifPresent(ms -> pool.maxConnectionLifeTime(ms, TimeUnit.MILLISECONDS));
+			millis("maintenance-frequency").ifPresent(ms -> pool.maintenanceFrequency(ms, TimeUnit.MILLISECONDS));
+			millis("maintenance-initial-delay").ifPresent(ms -> pool.maintenanceInitialDelay(ms, TimeUnit.MILLISECONDS));
+			pool.addConnectionPoolListener(mongoPoolMonitor);
+		});
+		return settings.build();
+	}
+
+	private WriteConcern writeConcern(ConnectionString connectionString) {
+		WriteConcern writeConcern = connectionString != null && connectionString.getWriteConcern() != null
+				? connectionString.getWriteConcern()
+				: WriteConcern.ACKNOWLEDGED.withJournal(true);
+		if (!value("write-concern.safe", Boolean.class).orElse(true)) {
+			return WriteConcern.UNACKNOWLEDGED;
+		}
+		Optional<Boolean> journal = value("write-concern.journal", Boolean.class);
+		if (journal.isPresent()) {
+			writeConcern = writeConcern.withJournal(journal.get());
+		}
+		Optional<String> w = value("write-concern.w", String.class);
+		if (w.isPresent()) {
+			writeConcern = StringUtils.isNumeric(w.get()) ? writeConcern.withW(Integer.parseInt(w.get())) : writeConcern.withW(w.get());
+		}
+		Optional<Long> wTimeout = millis("write-concern.w-timeout");
+		if (wTimeout.isPresent()) {
+			writeConcern = writeConcern.withWTimeout(wTimeout.get(), TimeUnit.MILLISECONDS);
+		}
+		return writeConcern;
+	}
+
+	private Optional<MongoCredential> credential() {
+		Optional<String> username = value("credentials.username", String.class);
+		if (!username.isPresent()) {
+			return Optional.empty();
+		}
+		char[] password = value("credentials.password", String.class).map(String::toCharArray).orElse(null);
+		String authSource = value("credentials.auth-source", String.class)
+				.orElse(value("database", String.class).orElse("admin"));
+		MongoCredential credential;
+		Optional<String> mechanism = value("credentials.auth-mechanism", String.class);
+		if (!mechanism.isPresent()) {
+			credential = MongoCredential.createCredential(username.get(), authSource, password);
+		} else {
+			switch (AuthenticationMechanism.fromMechanismName(mechanism.get())) {
+				case GSSAPI:
+					credential = MongoCredential.createGSSAPICredential(username.get());
+					break;
+				case PLAIN:
+					credential = MongoCredential.createPlainCredential(username.get(), authSource, password);
+					break;
+				case MONGODB_X509:
+					credential = MongoCredential.createMongoX509Credential(username.get());
+					break;
+				case SCRAM_SHA_1:
+					credential = MongoCredential.createScramSha1Credential(username.get(), authSource, password);
+					break;
+				default:
+					credential = MongoCredential.createScramSha256Credential(username.get(), authSource, password);
+			}
+		}
+		String propertiesPrefix = PREFIX + "credentials.auth-mechanism-properties.";
+		for (String name : config.getPropertyNames()) {
+			if (name.startsWith(propertiesPrefix)) {
+				credential = credential.withMechanismProperty(name.substring(propertiesPrefix.length()),
+						config.getValue(name, String.class));
+			}
+		}
+		return Optional.of(credential);
+	}
+
+	private <T> Optional<T> value(String name, Class<T> type) {
+		return config.getOptionalValue(PREFIX + name, type);
+	}
+
+	private Optional<Long> millis(String name) {
+		return value(name, Duration.class).map(Duration::toMillis);
+	}
+}
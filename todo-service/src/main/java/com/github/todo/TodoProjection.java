@@ -0,0 +1,101 @@
+package com.github.todo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.ws.rs.BadRequestException;
+
+import com.mongodb.client.model.Projections;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.conversions.Bson;
+
+/**
+ * Subset of {@link TodoDto} fields requested through the fields query parameter, used to ask Mongo only for
+ * the matching document fields and to drop the remaining ones from the response.
+ */
+public class TodoProjection {
+	static final String PERSON_NAME = "personName";
+
+	static final Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+			"name", "personId", PERSON_NAME, "done", "createdDate", "plannedEndDate", "category")));
+
+	private static final TodoProjection ALL = new TodoProjection(null);
+
+	private final Set<String> fields;
+
+	private TodoProjection(Set<String> fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * @param fields - comma-separated list of field names, blank for all fields
+	 * @return projection
+	 */
+	public static TodoProjection of(String fields) {
+		if (StringUtils.isBlank(fields)) {
+			return ALL;
+		}
+		Set<String> requestedFields = new HashSet<>();
+		for (String field : fields.split(",")) {
+			String trimmed = field.trim();
+			if (!FIELDS.contains(trimmed)) {
+				throw new BadRequestException(String.format("Invalid field: %s - allowed values: %s", trimmed, FIELDS));
+			}
+			requestedFields.add(trimmed);
+		}
+		return new TodoProjection(requestedFields);
+	}
+
+	public boolean includes(String field) {
+		return fields == null || fields.contains(field);
+	}
+
+	/**
+	 * @param requiredFields - document fields the caller needs besides the requested ones
+	 * @return Mongo projection or null to fetch whole documents
+	 */
+	public Bson toBson(String... requiredFields) {
+		if (fields == null) {
+			return null;
+		}
+		Set<String> documentFields = new HashSet<>(fields);
+		if (fields.contains(PERSON_NAME)) {
+			documentFields.add("personId");
+		}
+		documentFields.addAll(Arrays.asList(requiredFields));
+		return Projections.include(documentFields.toArray(new String[0]));
+	}
+
+	/**
+	 * Clears fields that were not requested, decoding defaults would otherwise leak into the response.
+	 */
+	public TodoDto apply(TodoDto todoDto) {
+		if (fields != null) {
+			if (!fields.contains("name")) {
+				todoDto.setName(null);
+			}
+			if (!fields.contains("personId")) {
+				todoDto.setPersonId(null);
+			}
+			if (!fields.contains(PERSON_NAME)) {
+				todoDto.setPersonName(null);
+			}
+			if (!fields.contains("done")) {
+				todoDto.setDone(null);
+			}
+			if (!fields.contains("createdDate")) {
+				todoDto.setCreatedDate(null);
+			}
+			if (!fields.contains("plannedEndDate")) {
+				todoDto.setPlannedEndDate(null);
+			}
+			if (!fields.contains("category")) {
+				todoDto.setCategory(null);
+			}
+		}
+		return todoDto;
+	}
+}
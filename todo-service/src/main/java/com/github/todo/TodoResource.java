@@ -1,23 +1,39 @@
 package com.github.todo;
 
 import java.net.URI;
-import java.time.Instant;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.RolesAllowed;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.validation.Valid;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.BeanParam;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -25,21 +41,38 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Updates;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.metrics.MetricUnits;
 import org.eclipse.microprofile.metrics.annotation.Counted;
 import org.eclipse.microprofile.metrics.annotation.Metered;
 import org.eclipse.microprofile.metrics.annotation.Timed;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.NullValueCheckStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,17 +83,47 @@ import org.slf4j.LoggerFactory;
 @RegisterForReflection
 public class TodoResource {
     private static final Logger log = LoggerFactory.getLogger(TodoResource.class);
+    static final String NDJSON = "application/x-ndjson";
+    private static final List<String> HISTOGRAM_DATE_FIELDS = Arrays.asList("plannedEndDate", "createdDate");
+    private static final List<String> HISTOGRAM_SPLIT_FIELDS = Arrays.asList("category", "done");
 
     @Inject
     TodoMapper todoMapper;
 
     @Inject
-    @RestClient
-    PersonService personService;
+    PersonNameResolver personNameResolver;
 
     @Inject
     JsonWebToken jwt;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TodoCategoryCounters todoCategoryCounters;
+
+    @Inject
+    TodoWriteBehind todoWriteBehind;
+
+    @Inject
+    TodoMetrics todoMetrics;
+
+    @Inject
+    TodoResultCache todoResultCache;
+
+    @ConfigProperty(name = "configuration.export.batchSize", defaultValue = "500")
+    int exportBatchSize;
+
+    @ConfigProperty(name = "configuration.pagination.maxPageSize", defaultValue = "1000")
+    int maxPageSize;
+
+    /**
+     * stored - use the personName stored on each todo and call person-service only for todos without one,
+     * resolve - always call person-service.
+     */
+    @ConfigProperty(name = "configuration.personName.readMode", defaultValue = "stored")
+    String personNameReadMode;
+
     @GET
     @Timed(name = "getAllTodosTimed",
             description = "Monitor the time getAllTodos method takes",
@@ -76,117 +139,468 @@ public class TodoResource {
             displayName = "getAllTodos",
             description = "Monitor how many times getAllTodos method was called")
     @RolesAllowed({"todo:read", "admin"})
-    @Fallback(fallbackMethod = "fallback")
+    @Fallback(fallbackMethod = "fallback", skipOn = WebApplicationException.class)
     public Response getAllTodos(@QueryParam("pageSize") @DefaultValue("10") Integer pageSize,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("fields") String fields,
+            @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived,
+            @Context UriInfo uriInfo,
+            @Context Request request,
             @Context SecurityContext ctx) {
-        List<Todo> todos;
-        if (ctx.isUserInRole("admin")) {
-            todos = Todo.findAll(pageSize);
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new BadRequestException(String.format("Invalid pageSize: %s - allowed values: 1..%s", pageSize, maxPageSize));
+        }
+        ObjectId after = decodeCursor(cursor);
+        TodoProjection projection = TodoProjection.of(fields);
+        String personId = ctx.isUserInRole("admin") ? null : ctx.getUserPrincipal().getName();
+        TodoResultCache.Key cacheKey = TodoResultCache.Key.of(personId, null, "getAllTodos", pageSize, cursor, fields, includeArchived);
+        TodoPage page = todoResultCache.getIfPresent(cacheKey);
+        if (page == null) {
+            long generation = todoResultCache.generation();
+            page = findPage(pageSize, after, projection, personId, includeArchived, request);
+            if (page.todos == null) {
+                return Response.notModified(page.entityTag).build();
+            }
+            // Pages with fallback person names are not cached, the lookup is retried on the next request
+            if (page.todos.stream().noneMatch(t -> PersonNameResolver.DEFAULT_NAME.equals(t.getPersonName()))) {
+                todoResultCache.put(cacheKey, page, generation);
+            }
         } else {
-            todos = Todo.findTodosByPersonId(pageSize, ctx.getUserPrincipal().getName());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(page.entityTag);
+            if (notModified != null) {
+                return notModified.build();
+            }
         }
-        List<TodoDto> todosDto = todoMapper.toResource(todos);
-        todosDto.forEach(t -> t.setPersonName(getPersonNameByService(t.getPersonId())));
-        return Response.ok(todosDto).build();
+        Response.ResponseBuilder response = Response.ok(page.todos).tag(page.entityTag);
+        if (page.nextCursor != null) {
+            response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("cursor", page.nextCursor).build(), "next");
+        }
+        return response.build();
+    }
+
+    /**
+     * @return page of todos, without todos when the request preconditions matched its ETag
+     */
+    private TodoPage findPage(Integer pageSize, ObjectId after, TodoProjection projection, String personId, boolean includeArchived,
+            Request request) {
+        List<TodoDto> todosDto;
+        if (personId == null) {
+            todosDto = todoMetrics.time(TodoMetrics.MONGO, "getAllTodos",
+                    () -> Todo.findAll(pageSize, after, projection.toBson("version"), includeArchived));
+        } else {
+            todosDto = todoMetrics.time(TodoMetrics.MONGO, "getAllTodos",
+                    () -> Todo.findTodosByPersonId(pageSize, personId, after, projection.toBson("version"), includeArchived));
+        }
+        // Computed from ids and versions of the page, including the extra todo telling whether a next page exists
+        EntityTag entityTag = entityTag(todosDto);
+        if (request.evaluatePreconditions(entityTag) != null) {
+            return new TodoPage(null, null, entityTag);
+        }
+        String nextCursor = null;
+        if (todosDto.size() > pageSize) {
+            todosDto = todosDto.subList(0, pageSize);
+            nextCursor = encodeCursor(todosDto.get(todosDto.size() - 1).id);
+        }
+        Map<String, String> personNames = null;
+        boolean resolveAll = !"stored".equalsIgnoreCase(personNameReadMode);
+        if (projection.includes(TodoProjection.PERSON_NAME)) {
+            Set<String> personIds = new LinkedHashSet<>();
+            for (TodoDto todoDto : todosDto) {
+                if (resolveAll || todoDto.getPersonName() == null) {
+                    personIds.add(todoDto.getPersonId());
+                }
+            }
+            if (!personIds.isEmpty()) {
+                List<String> unresolvedIds = new ArrayList<>(personIds);
+                personNames = todoMetrics.time(TodoMetrics.PERSON_SERVICE, "getAllTodos",
+                        () -> personNameResolver.resolve(unresolvedIds, "Bearer " + jwt.getRawToken()));
+            }
+        }
+        for (TodoDto todoDto : todosDto) {
+            if (personNames != null && (resolveAll || todoDto.getPersonName() == null)) {
+                todoDto.setPersonName(personNames.getOrDefault(todoDto.getPersonId(), PersonNameResolver.DEFAULT_NAME));
+            }
+            projection.apply(todoDto);
+        }
+        return new TodoPage(todosDto, nextCursor, entityTag);
+    }
+
+    @Path("/export")
+    @GET
+    @Produces(NDJSON)
+    @Timed(name = "exportTimed",
+            description = "Monitor the time export method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
+    @RolesAllowed({"todo:read", "admin"})
+    public Response export(@QueryParam("personId") String personId,
+            @QueryParam("batchSize") Integer batchSize,
+            @QueryParam("fields") String fields,
+            @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived,
+            @Context SecurityContext ctx) {
+        TodoProjection projection = TodoProjection.of(fields);
+        String exportPersonId = ctx.isUserInRole("admin") ? personId : ctx.getUserPrincipal().getName();
+        int cursorBatchSize = batchSize != null && batchSize > 0 ? batchSize : exportBatchSize;
+        ObjectWriter writer = objectMapper.writerFor(TodoDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingOutput stream = output -> {
+            try (MongoCursor<TodoDto> cursor = Todo.streamAll(exportPersonId, cursorBatchSize, projection.toBson(), includeArchived);
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                int count = 0;
+                while (cursor.hasNext()) {
+                    writer.writeValue(generator, projection.apply(cursor.next()));
+                    generator.writeRaw('\n');
+                    if (++count % cursorBatchSize == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return Response.ok(stream).build();
     }
 
     @Path("/getTotalCategory")
     @GET
+    @Timed(name = "getTotalCategoryTimed",
+            description = "Monitor the time getTotalCategory method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
     @RolesAllowed("**")
-    public Response getTotalCategory(@QueryParam("plannedEndDate") Date plannedEndDate,
-            @QueryParam("done") Boolean done,
-            @QueryParam("personId") String personId,
-            @QueryParam("categoryName") String categoryName) {
-        Instant plannedEndDateInstant = plannedEndDate != null ? plannedEndDate.toInstant() : null;
-        Map<Category, List<TodoDto>> map = Todo.findAllByCategory(plannedEndDateInstant, done, personId, categoryName)
-                .entrySet()
+    public Response getTotalCategory(@BeanParam TodoFilter filter,
+            @QueryParam("countsOnly") @DefaultValue("false") boolean countsOnly,
+            @QueryParam("fields") String fields) {
+        // Counters only cover the todos collection
+        boolean fromCounters = countsOnly && todoCategoryCounters.isEnabled() && !filter.hasPlannedEndDateRange()
+                && !filter.isIncludeArchived();
+        if (fromCounters) {
+            // Counters are already cheap to read and are not covered by the change stream on todos
+            return Response.ok(totals(todoMetrics.time(TodoMetrics.MONGO, "getTotalCategory",
+                    () -> todoCategoryCounters.countByCategory(filter))))
+                    .build();
+        }
+        TodoResultCache.Key cacheKey = TodoResultCache.Key.of(filter.getPersonId(), filter.getCategories(),
+                "getTotalCategory", filter.toKey(), countsOnly, fields);
+        Object entity = todoResultCache.getIfPresent(cacheKey);
+        if (entity == null) {
+            long generation = todoResultCache.generation();
+            entity = countsOnly
+                    ? totals(todoMetrics.time(TodoMetrics.MONGO, "getTotalCategory", () -> Todo.countByCategory(filter)))
+                    : findAllByCategory(filter, fields);
+            todoResultCache.put(cacheKey, entity, generation);
+        }
+        return Response.ok(entity).build();
+    }
+
+    private static List<CategoryTotalDto> totals(Map<Category, Long> totals) {
+        return totals.entrySet()
                 .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> todoMapper.toResource(e.getValue())));
+                .map(e -> new CategoryTotalDto(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Category, List<TodoDto>> findAllByCategory(TodoFilter filter, String fields) {
+        TodoProjection projection = TodoProjection.of(fields);
+        Map<Category, List<TodoDto>> map = todoMetrics.time(TodoMetrics.MONGO, "getTotalCategory",
+                () -> Todo.findAllByCategory(filter, projection.toBson("category")));
         map.values().stream()
                 .flatMap(Collection::stream)
-                .forEach(t -> t.setCategory(null));
-        return Response.ok(map).build();
+                .forEach(t -> projection.apply(t).setCategory(null));
+        return map;
+    }
+
+    /**
+     * Todos per day, ISO week or month of plannedEndDate or createdDate, filtered like getTotalCategory.
+     */
+    @Path("/histogram")
+    @GET
+    @Timed(name = "histogramTimed",
+            description = "Monitor the time histogram method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
+    @RolesAllowed("**")
+    public Response histogram(@BeanParam TodoFilter filter,
+            @QueryParam("granularity") @DefaultValue("DAY") String granularity,
+            @QueryParam("dateField") @DefaultValue("plannedEndDate") String dateField,
+            @QueryParam("splitBy") String splitBy) {
+        TodoHistogramDto.Granularity histogramGranularity;
+        try {
+            histogramGranularity = TodoHistogramDto.Granularity.valueOf(granularity.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(String.format("Invalid granularity: %s - allowed values: %s",
+                    granularity, Arrays.toString(TodoHistogramDto.Granularity.values())));
+        }
+        if (!HISTOGRAM_DATE_FIELDS.contains(dateField)) {
+            throw new BadRequestException(String.format("Invalid dateField: %s - allowed values: %s", dateField, HISTOGRAM_DATE_FIELDS));
+        }
+        Set<String> split = new HashSet<>();
+        if (StringUtils.isNotBlank(splitBy)) {
+            for (String field : splitBy.split(",")) {
+                if (!HISTOGRAM_SPLIT_FIELDS.contains(field.trim())) {
+                    throw new BadRequestException(String.format("Invalid splitBy: %s - allowed values: %s", field.trim(), HISTOGRAM_SPLIT_FIELDS));
+                }
+                split.add(field.trim());
+            }
+        }
+
+        List<Document> groups = todoMetrics.time(TodoMetrics.MONGO, "histogram", () -> Todo.histogram(filter, dateField,
+                histogramGranularity, split.contains("category"), split.contains("done")));
+        List<String> buckets = groups.stream()
+                .map(d -> d.get("_id", Document.class).getString("bucket"))
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Integer> bucketIndex = new HashMap<>(buckets.size());
+        buckets.forEach(b -> bucketIndex.put(b, bucketIndex.size()));
+        Map<List<Object>, TodoHistogramDto.Series> series = new HashMap<>();
+        groups.forEach(d -> {
+            Document id = d.get("_id", Document.class);
+            String category = id.getString("category");
+            Boolean done = id.getBoolean("done");
+            series.computeIfAbsent(Arrays.asList(category, done), k -> new TodoHistogramDto.Series(
+                    category != null ? Category.valueOf(category) : null, done, new long[buckets.size()]))
+                    .getCounts()[bucketIndex.get(id.getString("bucket"))] += d.get("total", Number.class).longValue();
+        });
+        return Response.ok(new TodoHistogramDto(histogramGranularity, buckets, series.values().stream()
+                .sorted(Comparator.comparing(TodoHistogramDto.Series::getCategory, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(TodoHistogramDto.Series::getDone, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList())))
+                .build();
     }
 
-    public Response fallback(Integer pageSize, SecurityContext ctx) {
+    public Response fallback(Integer pageSize, String cursor, String fields, boolean includeArchived, UriInfo uriInfo, Request request,
+            SecurityContext ctx) {
+        todoMetrics.recordFallback("getAllTodos");
         TodoDto todoDto = new TodoDto();
-        todoDto.setCreatedDate(null);
         todoDto.setName(String.format("Some error occurred! - please try later - %s", ctx.getUserPrincipal().getName()));
         return Response.status(Response.Status.SERVICE_UNAVAILABLE)
                 .entity(Collections.singletonList(todoDto))
                 .build();
     }
 
-    private String getPersonNameByService(String personId) {
-        try {
-            log.info("Searching by personId: {}", personId);
-            return personService.getById(personId, "Bearer " + jwt.getRawToken()).getName();
-        } catch (Exception e) {
-            log.warn("Error on method getPersonNameByService", e);
-            return "mocked-name";
-        }
-    }
-
     @GET
     @Path("/{id}")
+    @Timed(name = "getByIdTimed",
+            description = "Monitor the time getById method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
     @RolesAllowed({"todo:read", "admin"})
-    public Response getById(@PathParam("id") String id, @Context SecurityContext ctx) {
-        return getById(id)
-                .map(t -> Response.ok(todoMapper.toResource(t)).build())
+    public Response getById(@PathParam("id") String id,
+            @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived,
+            @Context Request request,
+            @Context SecurityContext ctx) {
+        return todoMetrics.time(TodoMetrics.MONGO, "getById", () -> includeArchived ? getByIdIncludingArchived(id) : getById(id))
+                .map(t -> {
+                    EntityTag entityTag = entityTag(t);
+                    Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+                    if (notModified != null) {
+                        return notModified.build();
+                    }
+                    return Response.ok(todoMapper.toResource(t)).tag(entityTag).build();
+                })
                 .orElseThrow(NotFoundException::new);
     }
 
     @POST
+    @Timed(name = "createTimed",
+            description = "Monitor the time create method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
     @RolesAllowed({"todo:create", "admin"})
-    public Response create(@Valid TodoDto todoDto) {
+    public CompletionStage<Response> create(@Valid TodoDto todoDto) {
         Todo todo = todoMapper.toModel(todoDto);
-        todo.persist();
+        todo.personName = resolvePersonName(todo.personId);
+        if (todoWriteBehind.isEnabled()) {
+            return todoWriteBehind.enqueue(todo)
+                    .thenApply(this::created)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        if (cause instanceof RejectedExecutionException) {
+                            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+                        }
+                        throw new CompletionException(cause);
+                    });
+        }
+        todoMetrics.run(TodoMetrics.MONGO, "create", () -> {
+            todo.persist();
+            todoCategoryCounters.onCreated(todo);
+        });
+        return CompletableFuture.completedFuture(created(todo));
+    }
+
+    private Response created(Todo todo) {
         return Response.created(URI.create(String.format("/api/todos/%s", todo.id)))
                                 .entity(todoMapper.toResource((todo)))
+                                .tag(entityTag(todo))
                                 .build();
     }
 
     @PUT
     @Path("/{id}")
+    @Timed(name = "updateTimed",
+            description = "Monitor the time update method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
     @RolesAllowed({"todo:update", "admin"})
-    public Response update(@Valid TodoDto todoDto, @PathParam("id") String id) {
-        return getById(id)
-                .map(t -> {
-                    t.name = todoDto.getName();
-                    t.personId = todoDto.getPersonId();
-                    if (todoDto.getDone() != null) {
-                        t.done = todoDto.getDone();
-                    }
-                    t.update();
-                    return Response.ok(t).build();
-                })
-                .orElseThrow(NotFoundException::new);
+    public Response update(@Valid TodoDto todoDto, @PathParam("id") String id,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        ObjectId objectId = new ObjectId(id);
+        Long expectedVersion = parseVersion(ifMatch);
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.set("name", todoDto.getName()));
+        updates.add(Updates.set("personId", todoDto.getPersonId()));
+        String personName = resolvePersonName(todoDto.getPersonId());
+        updates.add(Updates.set("personName", personName));
+        if (todoDto.getDone() != null) {
+            updates.add(Updates.set("done", todoDto.getDone()));
+            if (todoDto.getDone()) {
+                // set by OverdueTodoScanner
+                updates.add(Updates.unset("overdue"));
+            }
+        }
+        // The update and the counters are one sample of the MONGO phase
+        Todo t = todoMetrics.time(TodoMetrics.MONGO, "update", () -> {
+            Todo updated = Todo.findAndUpdate(objectId, expectedVersion, Updates.combine(updates));
+            if (updated != null) {
+                String oldPersonId = updated.personId;
+                boolean oldDone = updated.done;
+                updated.name = todoDto.getName();
+                updated.personId = todoDto.getPersonId();
+                updated.personName = personName;
+                if (todoDto.getDone() != null) {
+                    updated.done = todoDto.getDone();
+                }
+                updated.version++;
+                todoCategoryCounters.onUpdated(oldPersonId, updated.category, oldDone, updated);
+            }
+            return updated;
+        });
+        if (t == null) {
+            // Only on a miss, tells a stale If-Match apart from a missing todo
+            if (expectedVersion != null && Todo.findByIdOptional(objectId).isPresent()) {
+                return Response.status(Response.Status.PRECONDITION_FAILED).build();
+            }
+            throw new NotFoundException();
+        }
+        return Response.ok(t).tag(entityTag(t)).build();
     }
 
     @DELETE
     @Path("/{id}")
+    @Timed(name = "deleteTimed",
+            description = "Monitor the time delete method takes",
+            unit = MetricUnits.MILLISECONDS,
+            absolute = true)
     @RolesAllowed({"todo:delete", "admin"})
     public Response delete(@PathParam("id") String id) {
-        return getById(id)
-                .map(t -> {
-                    t.delete();
-                    return Response.noContent().build();
-                })
-                .orElseThrow(NotFoundException::new);
+        Todo t = todoMetrics.time(TodoMetrics.MONGO, "delete", () -> {
+            Todo deleted = Todo.findAndDelete(new ObjectId(id));
+            if (deleted != null) {
+                todoCategoryCounters.onDeleted(deleted);
+            }
+            return deleted;
+        });
+        if (t == null) {
+            throw new NotFoundException();
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * @return name to store on the todo or null when person-service could not resolve it, repaired later by {@link PersonNameRepair}
+     */
+    private String resolvePersonName(String personId) {
+        String name = todoMetrics.time(TodoMetrics.PERSON_SERVICE, "write",
+                () -> personNameResolver.resolve(Collections.singletonList(personId), "Bearer " + jwt.getRawToken()).get(personId));
+        return PersonNameResolver.DEFAULT_NAME.equals(name) ? null : name;
+    }
+
+    private static EntityTag entityTag(Todo todo) {
+        return new EntityTag(String.valueOf(todo.version), true);
+    }
+
+    /**
+     * Weak ETag of a list of todos, changes when any todo is added, removed or updated.
+     */
+    private static EntityTag entityTag(List<TodoDto> todos) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            ByteBuffer buffer = ByteBuffer.allocate(20);
+            for (TodoDto todo : todos) {
+                buffer.clear();
+                buffer.put(todo.id.toByteArray()).putLong(todo.version);
+                digest.update(buffer.array(), 0, buffer.position());
+            }
+            return new EntityTag(Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()), true);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param ifMatch - If-Match header, e.g. W/"3"
+     * @return expected version or null when the header is absent or *
+     */
+    static Long parseVersion(String ifMatch) {
+        if (StringUtils.isBlank(ifMatch) || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String version = StringUtils.removeStart(ifMatch.trim(), "W/");
+        try {
+            return Long.valueOf(StringUtils.strip(version, "\""));
+        } catch (NumberFormatException e) {
+            // An ETag that was not issued by this service can never match the current version
+            throw new WebApplicationException(Response.Status.PRECONDITION_FAILED);
+        }
+    }
+
+    private static String encodeCursor(ObjectId id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toByteArray());
+    }
+
+    private static ObjectId decodeCursor(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+        try {
+            return new ObjectId(Base64.getUrlDecoder().decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
     }
 
     private Optional<Todo> getById(String id) {
         return Todo.findByIdOptional(new ObjectId(id));
     }
 
-    @Mapper(componentModel = "cdi")
+    private Optional<Todo> getByIdIncludingArchived(String id) {
+        Optional<Todo> todo = getById(id);
+        return todo.isPresent() ? todo : Optional.ofNullable(Todo.findArchivedById(new ObjectId(id)));
+    }
+
+    static class TodoPage {
+        final List<TodoDto> todos;
+        final String nextCursor;
+        final EntityTag entityTag;
+
+        TodoPage(List<TodoDto> todos, String nextCursor, EntityTag entityTag) {
+            this.todos = todos;
+            this.nextCursor = nextCursor;
+            this.entityTag = entityTag;
+        }
+    }
+
+    @Mapper(componentModel = "cdi", nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS)
     interface TodoMapper {
         TodoDto toResource(Todo todo);
         default List<TodoDto> toResource(List<Todo> todos) {
-            return todos.stream()
-                    .map(t -> new TodoDto(t.name, t.personId, null, t.done, t.createdDate, t.plannedEndDate, t.category))
-                    .collect(Collectors.toList());
+            List<TodoDto> todosDto = new ArrayList<>(todos.size());
+            for (Todo t : todos) {
+                todosDto.add(new TodoDto(t.name, t.personId, t.personName, t.done, t.createdDate, t.plannedEndDate, t.category));
+            }
+            return todosDto;
         }
+        // id and version are never taken from a request body
+        @Mapping(target = "id", ignore = true)
+        @Mapping(target = "version", ignore = true)
         Todo toModel(TodoDto todoDto);
     }
 }
@@ -0,0 +1,198 @@
+package com.github.todo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+
+/**
+ * Size-bounded cache of read endpoint results, invalidated by {@link TodoChangeStream}: a change evicts only the
+ * entries whose personId and categories match the changed todo. Entries are only served while the change stream
+ * is open, any error clears the cache and bypasses it until the stream is reopened. Change streams need a
+ * replica set, hence the cache is disabled by default.
+ */
+@ApplicationScoped
+public class TodoResultCache implements TodoChangeStream.Listener {
+	@ConfigProperty(name = "configuration.resultCache.enabled", defaultValue = "false")
+	boolean enabled;
+
+	@ConfigProperty(name = "configuration.resultCache.maxSize", defaultValue = "10000")
+	long maxSize;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	@Inject
+	TodoChangeStream todoChangeStream;
+
+	private Cache<Key, Object> cache;
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private volatile boolean available;
+
+	private Timer invalidationLag;
+
+	@PostConstruct
+	void init() {
+		cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+		invalidationLag = metricRegistry.timer(Metadata.builder()
+				.withName("todoResultCacheInvalidationLag")
+				.withDescription("Time between the cluster time of a change on todos, second precision, and the eviction of the entries it affects")
+				.withType(MetricType.TIMER)
+				.withUnit(MetricUnits.MILLISECONDS)
+				.build());
+	}
+
+	void onStart(@Observes StartupEvent ev) {
+		if (enabled) {
+			todoChangeStream.addListener(this);
+		}
+	}
+
+	/**
+	 * @return generation to pass to {@link #put(Key, Object, long)}, read it before querying Mongo
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getIfPresent(Key key) {
+		return available ? (T) cache.getIfPresent(key) : null;
+	}
+
+	/**
+	 * Caches value unless an invalidation happened since generation was read, value could predate that change.
+	 */
+	public void put(Key key, Object value, long generation) {
+		if (available && this.generation.get() == generation) {
+			cache.put(key, value);
+			if (this.generation.get() != generation) {
+				cache.invalidate(key);
+			}
+		}
+	}
+
+	@Gauge(name = "todoResultCacheHitRatio", unit = MetricUnits.NONE, absolute = true,
+			description = "Ratio of read requests served from the result cache")
+	public double getHitRatio() {
+		return cache.stats().hitRate();
+	}
+
+	@Gauge(name = "todoResultCacheSize", unit = MetricUnits.NONE, absolute = true,
+			description = "Number of cached results")
+	public long getSize() {
+		return cache.estimatedSize();
+	}
+
+	@Override
+	public void onOpen() {
+		available = true;
+	}
+
+	@Override
+	public void onClose() {
+		available = false;
+		invalidateAll();
+	}
+
+	@Override
+	public void onChange(ChangeStreamDocument<TodoDto> change) {
+		OperationType operationType = change.getOperationType();
+		TodoDto todo = change.getFullDocument();
+		UpdateDescription updateDescription = change.getUpdateDescription();
+		boolean keysChanged = updateDescription != null
+				&& ((updateDescription.getUpdatedFields() != null
+						&& (updateDescription.getUpdatedFields().containsKey("personId") || updateDescription.getUpdatedFields().containsKey("category")))
+				|| (updateDescription.getRemovedFields() != null && !updateDescription.getRemovedFields().isEmpty()));
+		if ((operationType == OperationType.INSERT || operationType == OperationType.UPDATE) && todo != null && !keysChanged) {
+			invalidate(todo.getPersonId(), todo.getCategory());
+		} else {
+			// Deletes and replaces carry no previous personId/category, neither do updates of those fields
+			invalidateAll();
+		}
+		if (change.getClusterTime() != null) {
+			long lagMillis = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(change.getClusterTime().getTime());
+			invalidationLag.update(Math.max(lagMillis, 0), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void invalidate(String personId, Category category) {
+		generation.incrementAndGet();
+		cache.asMap().keySet().removeIf(key -> key.matches(personId, category));
+	}
+
+	private void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Cache key, personId and categories null/empty when the result spans all persons/categories.
+	 */
+	public static final class Key {
+		private final String personId;
+		private final Set<Category> categories;
+		private final List<Object> parts;
+
+		private Key(String personId, Set<Category> categories, List<Object> parts) {
+			this.personId = personId;
+			this.categories = categories != null ? categories : Collections.emptySet();
+			this.parts = parts;
+		}
+
+		public static Key of(String personId, Set<Category> categories, Object... parts) {
+			return new Key(personId, categories, Arrays.asList(parts));
+		}
+
+		boolean matches(String personId, Category category) {
+			return (this.personId == null || this.personId.equals(personId))
+					&& (categories.isEmpty() || categories.contains(category));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key key = (Key) o;
+			return Objects.equals(personId, key.personId)
+					&& categories.equals(key.categories)
+					&& parts.equals(key.parts);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(personId, categories, parts);
+		}
+	}
+}
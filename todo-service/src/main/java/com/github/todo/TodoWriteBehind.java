@@ -0,0 +1,240 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in write-behind for todo creates. Inserts are queued and a single flusher thread writes them with insertMany
+ * once batchSize todos are pending or flushIntervalMillis elapsed, completing each caller once its batch is acknowledged.
+ * The @Timed of create only covers the enqueue, todoWriteBehindPersistLatency covers enqueue to acknowledgement.
+ */
+@ApplicationScoped
+public class TodoWriteBehind {
+	private static final Logger log = LoggerFactory.getLogger(TodoWriteBehind.class);
+
+	@ConfigProperty(name = "configuration.writeBehind.enabled", defaultValue = "false")
+	boolean enabled;
+
+	@ConfigProperty(name = "configuration.writeBehind.batchSize", defaultValue = "500")
+	int batchSize;
+
+	@ConfigProperty(name = "configuration.writeBehind.flushIntervalMillis", defaultValue = "5")
+	long flushIntervalMillis;
+
+	@ConfigProperty(name = "configuration.writeBehind.maxQueueSize", defaultValue = "10000")
+	int maxQueueSize;
+
+	@Inject
+	TodoCategoryCounters todoCategoryCounters;
+
+	@Inject
+	MetricRegistry metricRegistry;
+
+	private final ConcurrentLinkedQueue<PendingInsert> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	private volatile boolean running;
+
+	private Thread flusher;
+
+	private Histogram batchSizeHistogram;
+
+	private Timer flushTimer;
+
+	private Timer persistTimer;
+
+	@PostConstruct
+	void init() {
+		if (!enabled) {
+			return;
+		}
+		metricRegistry.register(Metadata.builder()
+				.withName("todoWriteBehindQueueDepth")
+				.withDescription("Number of todos waiting to be inserted")
+				.withType(MetricType.GAUGE)
+				.withUnit(MetricUnits.NONE)
+				.build(), (Gauge<Integer>) queueSize::get);
+		batchSizeHistogram = metricRegistry.histogram(Metadata.builder()
+				.withName("todoWriteBehindBatchSize")
+				.withDescription("Number of todos inserted per insertMany")
+				.withType(MetricType.HISTOGRAM)
+				.withUnit(MetricUnits.NONE)
+				.build());
+		flushTimer = metricRegistry.timer(Metadata.builder()
+				.withName("todoWriteBehindFlushLatency")
+				.withDescription("Time taken by each insertMany")
+				.withType(MetricType.TIMER)
+				.withUnit(MetricUnits.MILLISECONDS)
+				.build());
+		persistTimer = metricRegistry.timer(Metadata.builder()
+				.withName("todoWriteBehindPersistLatency")
+				.withDescription("Time from enqueue until the todo is acknowledged or failed")
+				.withType(MetricType.TIMER)
+				.withUnit(MetricUnits.MILLISECONDS)
+				.build());
+		running = true;
+		flusher = new Thread(this::flushLoop, "todo-write-behind");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	@PreDestroy
+	void destroy() {
+		if (flusher != null) {
+			running = false;
+			LockSupport.unpark(flusher);
+			try {
+				flusher.join(TimeUnit.SECONDS.toMillis(5));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param todo - todo to insert, an id is assigned before it is queued
+	 * @return completes with the todo once its batch is acknowledged, fails with {@link RejectedExecutionException} when the queue is full
+	 * or the application is stopping
+	 */
+	public CompletionStage<Todo> enqueue(Todo todo) {
+		CompletableFuture<Todo> future = new CompletableFuture<>();
+		if (!running) {
+			future.completeExceptionally(new RejectedExecutionException("Write-behind is shut down"));
+			return future;
+		}
+		if (queueSize.incrementAndGet() > maxQueueSize) {
+			queueSize.decrementAndGet();
+			future.completeExceptionally(new RejectedExecutionException("Write-behind queue is full"));
+			return future;
+		}
+		todo.id = new ObjectId();
+		PendingInsert pending = new PendingInsert(todo, future);
+		queue.offer(pending);
+		// Shutdown started meanwhile, the flusher may have drained the queue and exited without this todo
+		if (!running && queue.remove(pending)) {
+			queueSize.decrementAndGet();
+			future.completeExceptionally(new RejectedExecutionException("Write-behind is shut down"));
+			return future;
+		}
+		if (queueSize.get() >= batchSize) {
+			LockSupport.unpark(flusher);
+		}
+		return future;
+	}
+
+	private void flushLoop() {
+		while (running || !queue.isEmpty()) {
+			if (queueSize.get() < batchSize && running) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+			}
+			try {
+				flush();
+			} catch (Exception e) {
+				log.warn("Error on method flushLoop", e);
+			}
+		}
+	}
+
+	private void flush() {
+		List<PendingInsert> batch = new ArrayList<>(Math.min(batchSize, queueSize.get()));
+		PendingInsert pending;
+		while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+			batch.add(pending);
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		queueSize.addAndGet(-batch.size());
+		batchSizeHistogram.update(batch.size());
+
+		List<Todo> todos = new ArrayList<>(batch.size());
+		batch.forEach(p -> todos.add(p.todo));
+		Set<Integer> failed = new HashSet<>();
+		long start = System.nanoTime();
+		try {
+			insert(todos);
+		} catch (MongoBulkWriteException e) {
+			for (BulkWriteError error : e.getWriteErrors()) {
+				failed.add(error.getIndex());
+				batch.get(error.getIndex()).completeExceptionally(new IllegalStateException(error.getMessage()));
+			}
+		} catch (Exception e) {
+			log.warn("Error on method flush", e);
+			batch.forEach(p -> p.completeExceptionally(e));
+			return;
+		} finally {
+			flushTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+
+		List<Todo> created = new ArrayList<>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			if (!failed.contains(i)) {
+				created.add(todos.get(i));
+			}
+		}
+		todoCategoryCounters.onCreated(created);
+		for (int i = 0; i < batch.size(); i++) {
+			if (!failed.contains(i)) {
+				batch.get(i).complete();
+			}
+		}
+	}
+
+	void insert(List<Todo> todos) {
+		Todo.insertMany(todos);
+	}
+
+	private class PendingInsert {
+		private final Todo todo;
+		private final CompletableFuture<Todo> future;
+		private final long enqueuedAt = System.nanoTime();
+
+		PendingInsert(Todo todo, CompletableFuture<Todo> future) {
+			this.todo = todo;
+			this.future = future;
+		}
+
+		void complete() {
+			persistTimer.update(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+			future.complete(todo);
+		}
+
+		void completeExceptionally(Throwable e) {
+			persistTimer.update(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+			future.completeExceptionally(e);
+		}
+	}
+}
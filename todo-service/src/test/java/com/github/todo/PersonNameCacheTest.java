@@ -0,0 +1,80 @@
+package com.github.todo;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersonNameCacheTest {
+    private final AtomicLong nanos = new AtomicLong();
+
+    private PersonNameCache personNameCache;
+
+    @BeforeEach
+    public void setup() {
+        personNameCache = new PersonNameCache();
+        personNameCache.maxSize = 2;
+        personNameCache.expireAfterWriteSeconds = 60;
+        personNameCache.refreshAfterWriteSeconds = 10;
+        personNameCache.serviceAuthorization = Optional.empty();
+        personNameCache.personServiceClient = Mockito.mock(PersonServiceClient.class);
+        personNameCache.ticker = nanos::get;
+        personNameCache.init();
+    }
+
+    @Test
+    @DisplayName("Test - When a name is looked up the hit and miss gauges should count it")
+    public void testHitAndMissCount() {
+        assertNull(personNameCache.getIfPresent("alice"));
+        personNameCache.put("alice", "Alice");
+
+        assertEquals("Alice", personNameCache.getIfPresent("alice"));
+        assertEquals("Alice", personNameCache.getIfPresent("alice"));
+
+        assertEquals(2, personNameCache.getHitCount());
+        assertEquals(1, personNameCache.getMissCount());
+        assertEquals(1, personNameCache.getSize());
+    }
+
+    @Test
+    @DisplayName("Test - When expireAfterWriteSeconds has passed the name should be gone")
+    public void testExpiry() {
+        personNameCache.put("alice", "Alice");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("Alice", personNameCache.getIfPresent("alice"));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        assertNull(personNameCache.getIfPresent("alice"));
+        assertEquals(1, personNameCache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Test - When more than maxSize names are cached the eviction gauge should count the evicted ones")
+    public void testSizeEviction() throws Exception {
+        personNameCache.put("alice", "Alice");
+        personNameCache.put("bob", "Bob");
+        personNameCache.put("carol", "Carol");
+
+        // Eviction runs in the background maintenance of the cache
+        await(() -> personNameCache.getEvictionCount() == 1);
+        assertEquals(2, personNameCache.getSize());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for eviction");
+            Thread.sleep(10);
+        }
+    }
+}
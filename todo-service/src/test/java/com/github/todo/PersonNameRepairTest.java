@@ -0,0 +1,60 @@
+package com.github.todo;
+
+import java.util.Collections;
+
+import javax.inject.Inject;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(EmbeddedMongoQuarkusTestResource.class)
+@QuarkusTestResource(WireMockQuarkusTestResource.class)
+public class PersonNameRepairTest {
+    private static final String PERSON_ID = "repair-renamed@admin.com";
+
+    @Inject
+    PersonNameRepair personNameRepair;
+
+    @Inject
+    PersonNameResolver personNameResolver;
+
+    @Inject
+    PersonNameCache personNameCache;
+
+    @Test
+    @DisplayName("Test - When a person was renamed the repair should store the new name even though the old one is cached")
+    public void testRepairRenamedPerson() throws Exception {
+        String authorization = "Bearer " + TokenUtils.getInstance()
+                .generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+        PersonNameResolverTest.stubPerson(PERSON_ID, "Old", 0);
+        assertEquals("Old", personNameResolver.resolve(Collections.singletonList(PERSON_ID), authorization).get(PERSON_ID));
+        Todo first = todo("Old");
+        Todo second = todo("Old");
+
+        PersonNameResolverTest.stubPerson(PERSON_ID, "New", 0);
+
+        assertTrue(personNameRepair.repair(authorization) >= 2);
+        for (Todo todo : new Todo[] {first, second}) {
+            Todo repaired = Todo.findById(todo.id);
+            assertEquals("New", repaired.personName);
+            assertEquals(todo.version + 1, repaired.version);
+        }
+        assertEquals("New", personNameCache.getIfPresent(PERSON_ID));
+        assertEquals(0, Todo.count("personId = ?1 and personName != ?2", PERSON_ID, "New"));
+    }
+
+    private static Todo todo(String personName) {
+        Todo todo = new Todo();
+        todo.name = "Repair";
+        todo.personId = PERSON_ID;
+        todo.personName = personName;
+        todo.persist();
+        return todo;
+    }
+}
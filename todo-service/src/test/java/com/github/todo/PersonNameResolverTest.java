@@ -0,0 +1,107 @@
+package com.github.todo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.apache.http.HttpHeaders;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(EmbeddedMongoQuarkusTestResource.class)
+@QuarkusTestResource(WireMockQuarkusTestResource.class)
+public class PersonNameResolverTest {
+    @Inject
+    PersonNameResolver personNameResolver;
+
+    @Inject
+    PersonNameCache personNameCache;
+
+    static TokenUtils tokenUtils;
+
+    @BeforeAll
+    public static void init() {
+        tokenUtils = TokenUtils.getInstance();
+    }
+
+    @Test
+    @DisplayName("Test - When a page repeats a personId person-service should be called once for it")
+    public void testDuplicatePersonIdsCallOnce() throws Exception {
+        stubPerson("resolver-duplicate@admin.com", "Duplicate", 0);
+        stubPerson("resolver-other@admin.com", "Other", 0);
+
+        Map<String, String> names = personNameResolver.resolve(Arrays.asList("resolver-duplicate@admin.com",
+                "resolver-other@admin.com", "resolver-duplicate@admin.com", null, "resolver-duplicate@admin.com"),
+                authorization());
+
+        assertEquals(2, names.size());
+        assertEquals("Duplicate", names.get("resolver-duplicate@admin.com"));
+        assertEquals("Other", names.get("resolver-other@admin.com"));
+        wireMock().verifyThat(exactly(1), getRequestedFor(urlEqualTo("/api/people/resolver-duplicate@admin.com")));
+        wireMock().verifyThat(exactly(1), getRequestedFor(urlEqualTo("/api/people/resolver-other@admin.com")));
+    }
+
+    @Test
+    @DisplayName("Test - When person-service answers after the deadline the default name should be returned in time")
+    public void testDeadlineReturnsDefaultName() throws Exception {
+        stubPerson("resolver-slow@admin.com", "Slow", 3000);
+
+        long start = System.currentTimeMillis();
+        Map<String, String> names = personNameResolver.resolve(Collections.singletonList("resolver-slow@admin.com"),
+                authorization());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(PersonNameResolver.DEFAULT_NAME, names.get("resolver-slow@admin.com"));
+        assertTrue(elapsed < 2500, "Resolve took " + elapsed + "ms");
+        wireMock().verifyThat(exactly(1), getRequestedFor(urlEqualTo("/api/people/resolver-slow@admin.com")));
+    }
+
+    @Test
+    @DisplayName("Test - When a person name was resolved before the next lookup should be served from cache")
+    public void testSecondLookupIsCacheHit() throws Exception {
+        stubPerson("resolver-cached@admin.com", "Cached", 0);
+        long hits = personNameCache.getHitCount();
+        long misses = personNameCache.getMissCount();
+
+        assertEquals("Cached", personNameResolver.resolve(Collections.singletonList("resolver-cached@admin.com"),
+                authorization()).get("resolver-cached@admin.com"));
+        assertEquals("Cached", personNameResolver.resolve(Collections.singletonList("resolver-cached@admin.com"),
+                authorization()).get("resolver-cached@admin.com"));
+
+        wireMock().verifyThat(exactly(1), getRequestedFor(urlEqualTo("/api/people/resolver-cached@admin.com")));
+        assertEquals(hits + 1, personNameCache.getHitCount());
+        assertEquals(misses + 1, personNameCache.getMissCount());
+    }
+
+    static void stubPerson(String personId, String name, int delayMillis) {
+        WireMockQuarkusTestResource.getWireMockServer().stubFor(get(urlEqualTo("/api/people/" + personId))
+                .willReturn(aResponse()
+                        .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.JSON.toString())
+                        .withFixedDelay(delayMillis)
+                        .withBody(String.format("{\"id\":\"%s\",\"name\":\"%s\"}", personId, name))));
+    }
+
+    static WireMock wireMock() {
+        return new WireMock("localhost", WireMockQuarkusTestResource.getWireMockServer().port());
+    }
+
+    private static String authorization() throws Exception {
+        return "Bearer " + tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+    }
+}
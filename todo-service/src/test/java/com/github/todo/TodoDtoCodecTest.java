@@ -0,0 +1,38 @@
+package com.github.todo;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class TodoDtoCodecTest {
+    private final TodoDtoCodec codec = new TodoDtoCodec();
+
+    @Test
+    @DisplayName("Test - When encoding a TodoDto decoding it back should give the same todo and omit null fields")
+    public void testEncodeDecode() {
+        TodoDto todoDto = new TodoDto("Test", "admin", "Admin", true, Instant.now().truncatedTo(ChronoUnit.MILLIS), null,
+                Category.OTHER);
+        todoDto.setId(new ObjectId());
+        todoDto.setVersion(3);
+
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), todoDto, EncoderContext.builder().build());
+        TodoDto decoded = codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+
+        assertFalse(document.containsKey("plannedEndDate"));
+        assertEquals(todoDto.toString(), decoded.toString());
+        assertEquals(todoDto.getId(), decoded.getId());
+        assertEquals(3, decoded.getVersion());
+    }
+}
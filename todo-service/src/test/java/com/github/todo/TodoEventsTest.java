@@ -0,0 +1,173 @@
+package com.github.todo;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.SseEventSink;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.jboss.resteasy.plugins.providers.sse.SseImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TodoEventsTest {
+    private TodoEvents todoEvents;
+
+    @AfterEach
+    public void destroy() {
+        if (todoEvents != null) {
+            todoEvents.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Test - When a todo changes only its owner and admins should receive the event, deletes included")
+    public void testEventsFilteredPerPrincipal() throws Exception {
+        todoEvents = todoEvents(16, "drop");
+        // Seen before anyone subscribed, its delete still reaches the owner
+        ObjectId earlier = new ObjectId();
+        todoEvents.onChange(change(OperationType.INSERT, earlier, todo("alice")));
+
+        RecordingSink admin = new RecordingSink();
+        RecordingSink alice = new RecordingSink();
+        RecordingSink bob = new RecordingSink();
+        todoEvents.subscribe(admin.sink, new SseImpl(), null);
+        todoEvents.subscribe(alice.sink, new SseImpl(), "alice");
+        todoEvents.subscribe(bob.sink, new SseImpl(), "bob");
+
+        ObjectId created = new ObjectId();
+        ObjectId reassigned = new ObjectId();
+        todoEvents.onChange(change(OperationType.INSERT, created, todo("alice")));
+        todoEvents.onChange(change(OperationType.INSERT, reassigned, todo("alice")));
+        todoEvents.onChange(change(OperationType.UPDATE, reassigned, todo("bob")));
+        todoEvents.onChange(change(OperationType.DELETE, earlier, null));
+        todoEvents.onChange(change(OperationType.DELETE, created, null));
+        todoEvents.onChange(change(OperationType.DELETE, reassigned, null));
+        // Unknown owner, only sent to subscribers for all todos
+        todoEvents.onChange(change(OperationType.DELETE, new ObjectId(), null));
+
+        await(() -> admin.events.size() == 7 && alice.events.size() == 4 && bob.events.size() == 2);
+        assertEquals(String.format("CREATED %s,CREATED %s,DELETED %s,DELETED %s", created, reassigned, earlier, created),
+                alice.describe());
+        assertEquals(String.format("UPDATED %s,DELETED %s", reassigned, reassigned), bob.describe());
+    }
+
+    @Test
+    @DisplayName("Test - When a subscriber buffer overflows with drop policy the backlog should be replaced by a RESET")
+    public void testEventsOverflowDrop() throws Exception {
+        todoEvents = todoEvents(2, "drop");
+        RecordingSink slow = new RecordingSink();
+        CompletableFuture<Object> pending = slow.block();
+        todoEvents.subscribe(slow.sink, new SseImpl(), null);
+
+        ObjectId first = new ObjectId();
+        todoEvents.onChange(change(OperationType.INSERT, first, todo("alice")));
+        await(() -> slow.events.size() == 1);
+        for (int i = 0; i < 3; i++) {
+            todoEvents.onChange(change(OperationType.INSERT, new ObjectId(), todo("alice")));
+        }
+        pending.complete(null);
+
+        await(() -> slow.events.size() == 2);
+        assertEquals(String.format("CREATED %s,RESET null", first), slow.describe());
+        Mockito.verify(slow.sink, Mockito.never()).close();
+    }
+
+    @Test
+    @DisplayName("Test - When a subscriber buffer overflows with disconnect policy the subscriber should be closed")
+    public void testEventsOverflowDisconnect() throws Exception {
+        todoEvents = todoEvents(2, "disconnect");
+        RecordingSink slow = new RecordingSink();
+        slow.block();
+        todoEvents.subscribe(slow.sink, new SseImpl(), null);
+
+        todoEvents.onChange(change(OperationType.INSERT, new ObjectId(), todo("alice")));
+        await(() -> slow.events.size() == 1);
+        for (int i = 0; i < 3; i++) {
+            todoEvents.onChange(change(OperationType.INSERT, new ObjectId(), todo("alice")));
+        }
+
+        Mockito.verify(slow.sink).close();
+        todoEvents.onChange(change(OperationType.INSERT, new ObjectId(), todo("alice")));
+        assertEquals(1, slow.events.size());
+    }
+
+    private static TodoEvents todoEvents(int bufferSize, String overflow) {
+        TodoEvents todoEvents = new TodoEvents();
+        todoEvents.bufferSize = bufferSize;
+        todoEvents.overflow = overflow;
+        todoEvents.maxSubscribers = 10;
+        todoEvents.senderThreads = 1;
+        todoEvents.ownerCacheSize = 100;
+        todoEvents.metricRegistry = Mockito.mock(MetricRegistry.class, Mockito.RETURNS_MOCKS);
+        todoEvents.init();
+        return todoEvents;
+    }
+
+    private static TodoDto todo(String personId) {
+        TodoDto todo = new TodoDto();
+        todo.setPersonId(personId);
+        return todo;
+    }
+
+    private static ChangeStreamDocument<TodoDto> change(OperationType operationType, ObjectId id, TodoDto todo) {
+        return new ChangeStreamDocument<>(operationType, null, null, null, todo,
+                new BsonDocument("_id", new BsonObjectId(id)), null, null, null, null);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for events");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingSink {
+        final SseEventSink sink = Mockito.mock(SseEventSink.class);
+        final List<TodoEventDto> events = new CopyOnWriteArrayList<>();
+
+        RecordingSink() {
+            Mockito.when(sink.send(Mockito.any())).thenAnswer(invocation -> {
+                events.add((TodoEventDto) invocation.<OutboundSseEvent>getArgument(0).getData());
+                return CompletableFuture.completedFuture(null);
+            });
+        }
+
+        /**
+         * The next send stays in flight until the returned future completes.
+         */
+        CompletableFuture<Object> block() {
+            CompletableFuture<Object> pending = new CompletableFuture<>();
+            Mockito.doAnswer(invocation -> {
+                events.add((TodoEventDto) invocation.<OutboundSseEvent>getArgument(0).getData());
+                return pending;
+            }).doAnswer(invocation -> {
+                events.add((TodoEventDto) invocation.<OutboundSseEvent>getArgument(0).getData());
+                return CompletableFuture.completedFuture(null);
+            }).when(sink).send(Mockito.any());
+            return pending;
+        }
+
+        String describe() {
+            return events.stream()
+                    .map(e -> e.getType() + " " + e.getId())
+                    .collect(Collectors.joining(","));
+        }
+    }
+}
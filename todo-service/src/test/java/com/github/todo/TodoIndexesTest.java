@@ -0,0 +1,87 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(EmbeddedMongoQuarkusTestResource.class)
+@QuarkusTestResource(WireMockQuarkusTestResource.class)
+public class TodoIndexesTest {
+    @Inject
+    TodoIndexes todoIndexes;
+
+    @Test
+    @DisplayName("Test - When indexes are created they should exist on todos and the archive and pass verify")
+    public void testIndexesCreated() {
+        // Other tests drop the archive collection along with its indexes
+        todoIndexes.create();
+
+        for (String collectionName : new String[] {"todos", Todo.ARCHIVE_COLLECTION}) {
+            List<String> names = Todo.mongoDatabase().getCollection(collectionName).listIndexes()
+                    .map(d -> d.getString("name"))
+                    .into(new ArrayList<>());
+            for (IndexModel index : TodoIndexes.INDEXES) {
+                assertTrue(names.contains(index.getOptions().getName()), collectionName + " misses " + index.getOptions().getName());
+            }
+        }
+        todoIndexes.verify();
+    }
+
+    @Test
+    @DisplayName("Test - When an index is missing on the archive verify mode should fail")
+    public void testVerifyFailsOnMissingIndex() {
+        todoIndexes.create();
+        MongoCollection<Document> archive = Todo.mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION);
+        archive.dropIndex("done_1_plannedEndDate_1");
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, todoIndexes::verify);
+            assertEquals("Missing indexes on todos_archive: [done_1_plannedEndDate_1]", e.getMessage());
+        } finally {
+            todoIndexes.create();
+        }
+        todoIndexes.verify();
+    }
+
+    @Test
+    @DisplayName("Test - When a query uses an index its accesses should grow and be exposed as a gauge")
+    public void testIndexAccesses() {
+        long before = todoIndexes.readIndexAccesses().getOrDefault("personId_1__id_1", 0L);
+
+        MongoCollection<Todo> collection = Todo.mongoCollection();
+        collection.find(Filters.eq("personId", "admin"))
+                .hint(Indexes.ascending("personId", "_id"))
+                .into(new ArrayList<>());
+
+        Map<String, Long> accesses = todoIndexes.readIndexAccesses();
+        assertTrue(accesses.get("personId_1__id_1") > before);
+
+        given()
+                .when()
+                .accept(ContentType.TEXT)
+                .get("/metrics/application")
+                .then()
+                .statusCode(200)
+                .body(containsString("todoIndexAccesses{index=\"personId_1__id_1\"}"),
+                        containsString("todoIndexAccesses{index=\"done_1_plannedEndDate_1\"}"));
+    }
+}
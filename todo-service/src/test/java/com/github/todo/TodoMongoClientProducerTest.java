@@ -0,0 +1,93 @@
+package com.github.todo;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.mongodb.AuthenticationMechanism;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TodoMongoClientProducerTest {
+    @Test
+    @DisplayName("Test - When quarkus.mongodb properties are set the client settings should apply all of them")
+    public void testSettingsFromProperties() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("quarkus.mongodb.connection-string", "mongodb://localhost:27017");
+        properties.put("quarkus.mongodb.database", "todos");
+        properties.put("quarkus.mongodb.credentials.username", "todo");
+        properties.put("quarkus.mongodb.credentials.password", "secret");
+        properties.put("quarkus.mongodb.credentials.auth-mechanism", "SCRAM-SHA-256");
+        properties.put("quarkus.mongodb.tls", "true");
+        properties.put("quarkus.mongodb.tls-insecure", "true");
+        properties.put("quarkus.mongodb.read-preference", "secondaryPreferred");
+        properties.put("quarkus.mongodb.write-concern.w", "majority");
+        properties.put("quarkus.mongodb.write-concern.w-timeout", "5s");
+        properties.put("quarkus.mongodb.read-timeout", "3s");
+        properties.put("quarkus.mongodb.max-pool-size", "30");
+
+        MongoClientSettings settings = producer(properties).settings();
+
+        assertEquals("todo", settings.getCredential().getUserName());
+        assertEquals("todos", settings.getCredential().getSource());
+        assertEquals(AuthenticationMechanism.SCRAM_SHA_256, settings.getCredential().getAuthenticationMechanism());
+        assertTrue(settings.getSslSettings().isEnabled());
+        assertTrue(settings.getSslSettings().isInvalidHostNameAllowed());
+        assertEquals(ReadPreference.secondaryPreferred(), settings.getReadPreference());
+        assertEquals(WriteConcern.MAJORITY.withJournal(true).withWTimeout(5, TimeUnit.SECONDS), settings.getWriteConcern());
+        assertEquals(3000, settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(30, settings.getConnectionPoolSettings().getMaxSize());
+    }
+
+    @Test
+    @DisplayName("Test - When the connection string has a write concern it should be kept unless overridden")
+    public void testSettingsKeepConnectionStringWriteConcern() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("quarkus.mongodb.connection-string", "mongodb://localhost:27017/?w=2&retryWrites=true");
+
+        MongoClientSettings settings = producer(properties).settings();
+
+        assertEquals(WriteConcern.W2, settings.getWriteConcern());
+        assertTrue(settings.getRetryWrites());
+
+        properties.put("quarkus.mongodb.write-concern.journal", "false");
+        properties.put("quarkus.mongodb.write-concern.retry-writes", "false");
+        settings = producer(properties).settings();
+
+        assertEquals(WriteConcern.W2.withJournal(false), settings.getWriteConcern());
+        assertFalse(settings.getRetryWrites());
+    }
+
+    @Test
+    @DisplayName("Test - When an unsupported quarkus.mongodb property is set the client should fail to start")
+    public void testSettingsRejectUnsupportedProperty() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("quarkus.mongodb.connection-string", "mongodb://localhost:27017");
+        properties.put("quarkus.mongodb.wait-queue-multiple", "5");
+
+        assertThrows(IllegalStateException.class, () -> producer(properties).settings());
+    }
+
+    private static TodoMongoClientProducer producer(Map<String, String> properties) {
+        TodoMongoClientProducer producer = new TodoMongoClientProducer();
+        producer.config = new SmallRyeConfigBuilder()
+                .addDiscoveredConverters()
+                .withSources(new PropertiesConfigSource(properties, "test", 100))
+                .build();
+        producer.maxConnectionIdleTime = Duration.ofSeconds(60);
+        producer.mongoPoolMonitor = Mockito.mock(MongoPoolMonitor.class);
+        return producer;
+    }
+}
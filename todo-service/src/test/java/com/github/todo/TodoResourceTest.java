@@ -1,8 +1,15 @@
 package com.github.todo;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoCollection;
 import io.quarkus.runtime.StartupEvent;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
@@ -11,6 +18,8 @@ import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
 import org.apache.http.HttpHeaders;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,14 +27,21 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @QuarkusTestResource(EmbeddedMongoQuarkusTestResource.class)
@@ -40,6 +56,15 @@ public class TodoResourceTest {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    TodoCategoryCounters todoCategoryCounters;
+
+    @Inject
+    OverdueTodoScanner overdueTodoScanner;
+
+    @Inject
+    TodoArchiver todoArchiver;
+
     @ConfigProperty(name = "quarkus.http.test-port")
     Integer assignedPort;
 
@@ -56,6 +81,7 @@ public class TodoResourceTest {
         jacksonCustomizer.customize(objectMapper);
         Todo.deleteAll();
         appLifecycleBean.onStart(Mockito.mock(StartupEvent.class));
+        todoCategoryCounters.reconcile();
     }
 
     @Test
@@ -100,6 +126,32 @@ public class TodoResourceTest {
                 .body("name", is("new Todo"));
     }
 
+    @Test
+    @DisplayName("Test - When Calling POST - /api/todos should store the person name on the todo")
+    public void testCreateTodoStoresPersonName() throws Exception {
+        TodoDto todoDto = new TodoDto();
+        todoDto.setName("new Todo");
+        todoDto.setPersonId("admin");
+        todoDto.setCategory(Category.OTHER);
+
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"todo:create"}));
+
+        String location = given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body(todoDto)
+                .contentType(ContentType.JSON)
+                .post("/api/todos")
+                .then()
+                .statusCode(201)
+                .body("personName", is("Test"))
+                .extract()
+                .header(HttpHeaders.LOCATION);
+
+        Todo todo = Todo.findById(new ObjectId(location.substring(location.lastIndexOf('/') + 1)));
+        assertEquals("Test", todo.personName);
+    }
+
     @Test
     @DisplayName("Test - When Calling DELETE - /api/todos/{id} should response 204 - No Content")
     public void testDeleteTodoWithoutRoleShouldResponseForbidden() throws Exception {
@@ -118,6 +170,56 @@ public class TodoResourceTest {
                 .statusCode(204);
     }
 
+    @Test
+    @DisplayName("Test - When Calling PUT - /api/todos/{id} with stale If-Match should response 412 - Precondition Failed")
+    public void testUpdateTodoWithIfMatch() throws Exception {
+        Todo todo = new Todo();
+        todo.name = "Test";
+        todo.personId = "test";
+        todo.category = Category.OTHER;
+        todo.persist();
+
+        TodoDto todoDto = new TodoDto();
+        todoDto.setName("Updated");
+        todoDto.setPersonId("test");
+        todoDto.setDone(true);
+        todoDto.setCategory(Category.OTHER);
+
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"todo:update"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                .body(todoDto)
+                .contentType(ContentType.JSON)
+                .put("/api/todos/{id}", todo.id.toHexString())
+                .then()
+                .statusCode(200)
+                .header(HttpHeaders.ETAG, "W/\"1\"")
+                .body("name", is("Updated"))
+                .body("done", is(true));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                .body(todoDto)
+                .contentType(ContentType.JSON)
+                .put("/api/todos/{id}", todo.id.toHexString())
+                .then()
+                .statusCode(412);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body(todoDto)
+                .contentType(ContentType.JSON)
+                .put("/api/todos/{id}", new ObjectId().toHexString())
+                .then()
+                .statusCode(404);
+    }
+
     @Test
     @DisplayName("Test - When Calling GET - /api/todos should response all todos - 200 - OK")
     public void testGetAllTodos() throws Exception {
@@ -161,11 +263,693 @@ public class TodoResourceTest {
         given()
                 .when()
                 .header(HttpHeaders.AUTHORIZATION, authorization)
-                .get("/api/todos/getTotalCategory?categoryName=HO")
+                .get("/api/todos/getTotalCategory?categoryName=HOBBY")
                 .then()
                 .statusCode(200)
                 .body("HOBBY.name", hasItems("Learn Hurling"))
                 .body("$", not(hasKey("LEARN")));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/getTotalCategory?categoryName=LEARN,HOBBY&plannedEndDateFrom=1/1/2000")
+                .then()
+                .statusCode(200)
+                .body("LEARN.name", hasItems("Learn Quarkus", "Learn Kotlin"))
+                .body("HOBBY.name", hasItems("Learn Hurling"));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/getTotalCategory?categoryName=HO")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos/getTotalCategory?countsOnly=true should response totals per category - 200 - OK")
+    public void testGetTotalCategoryCountsOnly() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"test"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/getTotalCategory?personId=default@admin.com&countsOnly=true")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(2))
+                .body("find { it.category == 'LEARN' }.total", equalTo(2))
+                .body("find { it.category == 'HOBBY' }.total", equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling POST - /api/todos should increment the category counters")
+    public void testCategoryCountersOnCreate() throws Exception {
+        TodoDto todoDto = new TodoDto();
+        todoDto.setName("new Todo");
+        todoDto.setPersonId("default@admin.com");
+        todoDto.setCategory(Category.OTHER);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"todo:create"})))
+                .body(todoDto)
+                .contentType(ContentType.JSON)
+                .post("/api/todos")
+                .then()
+                .statusCode(201);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"test"})))
+                .get("/api/todos/getTotalCategory?personId=default@admin.com&countsOnly=true")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(3))
+                .body("find { it.category == 'OTHER' }.total", equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Test - When counters drifted reconcile should correct only the drifted counters in place")
+    public void testCategoryCountersReconcile() throws Exception {
+        MongoCollection<Document> counters = Todo.mongoDatabase().getCollection(TodoCategoryCounters.COLLECTION);
+        counters.updateMany(new Document("_id.category", "LEARN"), new Document("$inc", new Document("total", 5)));
+        counters.insertOne(new Document("_id", new Document("personId", "nobody").append("category", "OTHER").append("done", false))
+                .append("total", 3));
+
+        assertTrue(todoCategoryCounters.reconcile() >= 2);
+        assertEquals(0, todoCategoryCounters.reconcile());
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"test"})))
+                .get("/api/todos/getTotalCategory?personId=default@admin.com&countsOnly=true")
+                .then()
+                .statusCode(200)
+                .body("find { it.category == 'LEARN' }.total", equalTo(2));
+        assertEquals(0, counters.find(new Document("_id.personId", "nobody")).first().get("total", Number.class).longValue());
+    }
+
+    @Test
+    @DisplayName("Test - When updating and deleting through bulk and reactive endpoints should adjust the category counters")
+    public void testCategoryCountersOnBulkAndReactiveWrites() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+        String totals = "/api/todos/getTotalCategory?personId=counters@admin.com&countsOnly=true";
+
+        String location = given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body("{\"name\":\"Counted\",\"personId\":\"counters@admin.com\",\"category\":\"LEARN\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/todos")
+                .then()
+                .statusCode(201)
+                .extract()
+                .header(HttpHeaders.LOCATION);
+        String id = location.substring(location.lastIndexOf('/') + 1);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body("[{\"op\":\"UPDATE\",\"id\":\"" + id + "\",\"todo\":{\"name\":\"Counted\",\"personId\":\"counters@admin.com\",\"category\":\"LEARN\",\"done\":true}}]")
+                .contentType(ContentType.JSON)
+                .post("/api/todos/bulk")
+                .then()
+                .statusCode(200)
+                .body("status", hasItems("UPDATED"));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get(totals + "&done=true")
+                .then()
+                .statusCode(200)
+                .body("find { it.category == 'LEARN' }.total", equalTo(1));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get(totals + "&done=false")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(0));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .delete("/api/reactive/todos/" + id)
+                .then()
+                .statusCode(204);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get(totals)
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(0));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos/histogram should response todos per bucket - 200 - OK")
+    public void testHistogram() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"test"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/histogram?personId=default@admin.com&granularity=month&splitBy=category")
+                .then()
+                .statusCode(200)
+                .body("granularity", is("MONTH"))
+                .body("buckets.size()", equalTo(1))
+                .body("series.size()", equalTo(2))
+                .body("series.find { it.category == 'LEARN' }.counts", equalTo(Arrays.asList(2)))
+                .body("series.find { it.category == 'HOBBY' }.counts", equalTo(Arrays.asList(1)));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/histogram?granularity=year")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos with If-None-Match should response 304 - Not Modified")
+    public void testGetAllTodosWithIfNoneMatch() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        String etag = given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos")
+                .then()
+                .statusCode(200)
+                .header(HttpHeaders.ETAG, notNullValue())
+                .extract()
+                .header(HttpHeaders.ETAG);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .get("/api/todos")
+                .then()
+                .statusCode(304);
+
+        Todo todo = Todo.<Todo>listAll().get(0);
+        todo.name = "Changed";
+        todo.version++;
+        todo.update();
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .get("/api/todos")
+                .then()
+                .statusCode(200)
+                .header(HttpHeaders.ETAG, not(etag));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /metrics/application should include phase timers and SLO counters")
+    public void testRequestMetrics() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos")
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .accept(ContentType.TEXT)
+                .get("/metrics/application")
+                .then()
+                .statusCode(200)
+                .body(containsString("todoPhaseTime"))
+                .body(containsString("todoRequestsWithinSlo"))
+                .body(containsString("getByIdTimed"));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /metrics/application should include connection pool metrics")
+    public void testMongoPoolMetrics() throws Exception {
+        given()
+                .when()
+                .accept(ContentType.TEXT)
+                .get("/metrics/application")
+                .then()
+                .statusCode(200)
+                .body(containsString("mongoPoolSize"))
+                .body(containsString("mongoPoolCheckedOut"))
+                .body(containsString("mongoPoolWaitQueueSize"))
+                .body(containsString("mongoPoolCheckOutTime"));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /metrics/application should expose person-service client metrics - 200 - OK")
+    public void testPersonServiceClientMetrics() throws Exception {
+        given()
+                .when()
+                .accept(ContentType.TEXT)
+                .get("/metrics/application")
+                .then()
+                .statusCode(200)
+                .body(containsString("personServiceGetByIdTimed"))
+                .body(containsString("personServiceGetByIdInFlight"))
+                .body(containsString("personServiceGetByIdAsyncTimed"))
+                .body(containsString("personServiceGetByIdAsyncInFlight"));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/reactive/todos should response all todos - 200 - OK")
+    public void testGetAllReactiveTodos() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/reactive/todos")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(3))
+                .body("name", hasItems("Learn Quarkus", "Learn Kotlin", "Learn Hurling"))
+                .body("personName", hasItems("Test", "Test", "Test"));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling PUT - /api/reactive/todos/{id} should update only the request fields and honor If-Match")
+    public void testUpdateReactiveTodo() throws Exception {
+        Todo todo = new Todo();
+        todo.name = "Test";
+        todo.personId = "test";
+        todo.category = Category.OTHER;
+        todo.persist();
+        Todo.mongoCollection().updateOne(new Document("_id", todo.id), new Document("$set", new Document("overdue", true)));
+
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("test", new String[] {"todo:update"}));
+        String body = "{\"name\":\"Updated\",\"personId\":\"test\",\"category\":\"OTHER\",\"done\":false}";
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body(body)
+                .contentType(ContentType.JSON)
+                .put("/api/reactive/todos/{id}", todo.id.toHexString())
+                .then()
+                .statusCode(200)
+                .header(HttpHeaders.ETAG, "W/\"1\"")
+                .body("name", is("Updated"));
+        assertEquals(true, findDocument(todo.id).getBoolean("overdue"));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                .body(body)
+                .contentType(ContentType.JSON)
+                .put("/api/reactive/todos/{id}", todo.id.toHexString())
+                .then()
+                .statusCode(412);
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                .body(body.replace("\"done\":false", "\"done\":true"))
+                .contentType(ContentType.JSON)
+                .put("/api/reactive/todos/{id}", todo.id.toHexString())
+                .then()
+                .statusCode(200)
+                .body("done", is(true));
+        Document document = findDocument(todo.id);
+        assertEquals(2L, document.get("version", Number.class).longValue());
+        assertNull(document.get("overdue"));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling POST and PUT - /api/reactive/todos should store the name of the current person")
+    public void testReactiveTodoStoresPersonName() throws Exception {
+        WireMockQuarkusTestResource.getWireMockServer().stubFor(get(urlEqualTo("/api/people/reactive-renamed@admin.com"))
+                .willReturn(aResponse()
+                        .withHeader(HttpHeaders.CONTENT_TYPE, ContentType.JSON.toString())
+                        .withBody("{\"id\":\"reactive-renamed@admin.com\",\"name\":\"Renamed\"}")));
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        String location = given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body("{\"name\":\"Reactive\",\"personId\":\"reactive@admin.com\",\"category\":\"OTHER\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/reactive/todos")
+                .then()
+                .statusCode(201)
+                .body("personName", is("Test"))
+                .extract()
+                .header(HttpHeaders.LOCATION);
+        ObjectId id = new ObjectId(location.substring(location.lastIndexOf('/') + 1));
+        assertEquals("Test", findDocument(id).getString("personName"));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body("{\"name\":\"Reactive\",\"personId\":\"reactive-renamed@admin.com\",\"category\":\"OTHER\"}")
+                .contentType(ContentType.JSON)
+                .put("/api/reactive/todos/{id}", id.toHexString())
+                .then()
+                .statusCode(200)
+                .body("personName", is("Renamed"));
+        assertEquals("Renamed", findDocument(id).getString("personName"));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos with cursor should walk all pages - 200 - OK")
+    public void testGetAllTodosWithCursor() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        String link = given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos?pageSize=2")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(2))
+                .header("Link", containsString("rel=\"next\""))
+                .extract()
+                .header("Link");
+
+        String cursor = link.replaceAll(".*cursor=([^&>]+).*", "$1");
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos?pageSize=2&cursor={cursor}", cursor)
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(1))
+                .header("Link", is(nullValue()));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos?cursor=invalid")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos with pageSize out of range should response bad request - 400")
+    public void testGetAllTodosWithInvalidPageSize() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        for (String pageSize : Arrays.asList("0", "-1", "1001")) {
+            given()
+                    .when()
+                    .header(HttpHeaders.AUTHORIZATION, authorization)
+                    .get("/api/todos?pageSize={pageSize}", pageSize)
+                    .then()
+                    .statusCode(400);
+        }
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos/export should stream one json per line - 200 - OK")
+    public void testExportTodos() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        String body = given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/export?batchSize=2")
+                .then()
+                .statusCode(200)
+                .contentType(containsString(TodoResource.NDJSON))
+                .extract()
+                .asString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("Learn Quarkus", objectMapper.readTree(lines[0]).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("Test - When Calling POST - /api/todos/bulk should apply all operations - 200 - OK")
+    public void testBulkTodos() throws Exception {
+        Todo todo = new Todo();
+        todo.name = "Test";
+        todo.personId = "admin";
+        todo.category = Category.OTHER;
+        todo.persist();
+
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        String operations = "[{\"op\":\"CREATE\",\"todo\":{\"name\":\"Bulk\",\"personId\":\"admin\",\"category\":\"OTHER\"}}," +
+                "{\"op\":\"DELETE\",\"id\":\"" + todo.id.toHexString() + "\"}]";
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body(operations)
+                .contentType(ContentType.JSON)
+                .post("/api/todos/bulk")
+                .then()
+                .statusCode(200)
+                .body("status", hasItems("CREATED", "DELETED"))
+                .body("[0].id", is(notNullValue()));
+
+        assertEquals(4, Todo.count());
+
+        String missing = new ObjectId().toHexString();
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body("[{\"op\":\"UPDATE\",\"id\":\"" + missing + "\",\"todo\":{\"name\":\"Bulk\",\"personId\":\"admin\",\"category\":\"OTHER\"}}," +
+                        "{\"op\":\"DELETE\",\"id\":\"" + todo.id.toHexString() + "\"}]")
+                .contentType(ContentType.JSON)
+                .post("/api/todos/bulk")
+                .then()
+                .statusCode(200)
+                .body("status", equalTo(Arrays.asList("NOT_FOUND", "NOT_FOUND")));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .body("[{\"op\":\"CREATE\",\"todo\":{\"name\":\"Bulk\",\"personId\":\"admin\",\"category\":\"OTHER\"}},{\"op\":\"UPDATE\",\"id\":\"invalid\"}]")
+                .contentType(ContentType.JSON)
+                .post("/api/todos/bulk")
+                .then()
+                .statusCode(400)
+                .body("status", hasItems("SKIPPED", "INVALID"));
+
+        assertEquals(4, Todo.count());
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos?fields=name should response only requested fields - 200 - OK")
+    public void testGetAllTodosWithFields() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos?fields=name,category")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(3))
+                .body("name", hasItems("Learn Quarkus", "Learn Kotlin", "Learn Hurling"))
+                .body("[0]", not(hasKey("createdDate")))
+                .body("[0]", not(hasKey("personName")))
+                .body("[0]", not(hasKey("personId")));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos?fields=unknown")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos should decode documents written by older versions - 200 - OK")
+    public void testGetAllTodosWithLegacyDocument() throws Exception {
+        Todo.mongoCollection().withDocumentClass(Document.class).insertOne(new Document("name", "Legacy Todo")
+                .append("personId", "default@admin.com")
+                .append("category", Category.OTHER.name())
+                .append("version", 2)
+                .append("priority", "high"));
+
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(4))
+                .body("name", hasItems("Learn Quarkus", "Legacy Todo"))
+                .body("[3]", not(hasKey("priority")));
+    }
+
+    @Test
+    @DisplayName("Test - When Calling GET - /api/todos/events with events disabled should response not found - 404")
+    public void testTodoEventsDisabled() throws Exception {
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .accept("text/event-stream")
+                .get("/api/todos/events")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("Test - When scanning overdue todos should flag todos not done past their plannedEndDate")
+    public void testOverdueTodoScanner() throws Exception {
+        Todo.mongoDatabase().getCollection(OverdueTodoScanner.COLLECTION).drop();
+        Todo overdue = new Todo();
+        overdue.name = "Overdue";
+        overdue.personId = "admin";
+        overdue.category = Category.OTHER;
+        overdue.plannedEndDate = Instant.now().minusSeconds(TimeUnit.DAYS.toSeconds(1));
+        Todo done = new Todo();
+        done.name = "Done";
+        done.personId = "admin";
+        done.category = Category.OTHER;
+        done.done = true;
+        done.plannedEndDate = overdue.plannedEndDate;
+        Todo.persist(overdue, done);
+
+        assertEquals(1, overdueTodoScanner.scan());
+
+        assertTrue(findDocument(overdue.id).getBoolean("overdue"));
+        assertNull(findDocument(done.id).get("overdue"));
+        assertEquals(0, overdueTodoScanner.scan());
+
+        given()
+                .when()
+                .accept(ContentType.TEXT)
+                .get("/metrics/application")
+                .then()
+                .statusCode(200)
+                .body(containsString("overdueTodos"))
+                .body(containsString("overdueScannerLag"));
+    }
+
+    @Test
+    @DisplayName("Test - When archiving done todos past their plannedEndDate should move them out of todos and still serve them with includeArchived")
+    public void testArchiveTodos() throws Exception {
+        Todo.mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION).drop();
+        Todo todo = new Todo();
+        todo.name = "Archived";
+        todo.personId = "admin";
+        todo.category = Category.OTHER;
+        todo.done = true;
+        todo.plannedEndDate = Instant.now().minusSeconds(TimeUnit.DAYS.toSeconds(60));
+        todo.persist();
+
+        assertEquals(1, todoArchiver.archive());
+
+        assertNull(findDocument(todo.id));
+        String authorization = tokenUtils.generateTokenString(new TokenUtils.AuthorizationDto("admin", new String[] {"admin"}));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos")
+                .then()
+                .statusCode(200)
+                .body("name", not(hasItems("Archived")));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos?includeArchived=true")
+                .then()
+                .statusCode(200)
+                .body("name", hasItems("Archived"));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/{id}?includeArchived=true", todo.id.toString())
+                .then()
+                .statusCode(200)
+                .body("name", is("Archived"));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/getTotalCategory?personId=admin&countsOnly=true")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(0));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/getTotalCategory?personId=admin&countsOnly=true&includeArchived=true")
+                .then()
+                .statusCode(200)
+                .body("find { it.category == 'OTHER' }.total", equalTo(1));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/reactive/todos/getTotalCategory?personId=admin&countsOnly=true")
+                .then()
+                .statusCode(200)
+                .body("$.size", equalTo(0));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/reactive/todos/getTotalCategory?personId=admin&countsOnly=true&includeArchived=true")
+                .then()
+                .statusCode(200)
+                .body("find { it.category == 'OTHER' }.total", equalTo(1));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/reactive/todos/getTotalCategory?personId=admin&includeArchived=true")
+                .then()
+                .statusCode(200)
+                .body("OTHER.name", equalTo(Arrays.asList("Archived")));
+        given()
+                .when()
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .get("/api/todos/histogram?personId=admin&granularity=month&splitBy=category&includeArchived=true")
+                .then()
+                .statusCode(200)
+                .body("buckets.size()", equalTo(1))
+                .body("series.find { it.category == 'OTHER' }.counts", equalTo(Arrays.asList(1)));
+        assertEquals(0, todoArchiver.archive());
+    }
+
+    @Test
+    @DisplayName("Test - When a todo is modified after it was read for archiving should keep it in todos and drop its archive copy")
+    public void testArchiveTodosWithVersionMismatch() throws Exception {
+        MongoCollection<Document> archive = Todo.mongoDatabase().getCollection(Todo.ARCHIVE_COLLECTION);
+        archive.drop();
+        Todo todo = new Todo();
+        todo.name = "Archived";
+        todo.personId = "admin";
+        todo.category = Category.OTHER;
+        todo.done = true;
+        todo.plannedEndDate = Instant.now().minusSeconds(TimeUnit.DAYS.toSeconds(60));
+        todo.persist();
+        List<Document> batch = Collections.singletonList(findDocument(todo.id));
+
+        todo.name = "Modified";
+        todo.version++;
+        todo.update();
+
+        assertEquals(0, todoArchiver.archiveBatch(batch));
+        assertEquals("Modified", findDocument(todo.id).getString("name"));
+        assertNull(archive.find(new Document("_id", todo.id)).first());
+    }
+
+    private static Document findDocument(ObjectId id) {
+        return Todo.mongoCollection().withDocumentClass(Document.class).find(new Document("_id", id)).first();
     }
 
 }
@@ -0,0 +1,129 @@
+package com.github.todo;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TodoResultCacheTest {
+    private static final TodoResultCache.Key ALL = TodoResultCache.Key.of(null, null, "getAllTodos");
+    private static final TodoResultCache.Key ALICE = TodoResultCache.Key.of("alice", null, "getAllTodos");
+    private static final TodoResultCache.Key ALICE_LEARN = TodoResultCache.Key.of("alice", EnumSet.of(Category.LEARN), "getTotalCategory");
+    private static final TodoResultCache.Key BOB = TodoResultCache.Key.of("bob", null, "getAllTodos");
+
+    private TodoResultCache todoResultCache;
+
+    @BeforeEach
+    public void setup() {
+        todoResultCache = new TodoResultCache();
+        todoResultCache.maxSize = 100;
+        todoResultCache.metricRegistry = Mockito.mock(MetricRegistry.class, Mockito.RETURNS_MOCKS);
+        todoResultCache.init();
+    }
+
+    @Test
+    @DisplayName("Test - When a key spans a person or categories it should match only changes of those")
+    public void testKeyMatches() {
+        assertTrue(ALL.matches("bob", Category.HOBBY));
+        assertTrue(ALICE.matches("alice", Category.HOBBY));
+        assertFalse(ALICE.matches("bob", Category.HOBBY));
+        assertTrue(ALICE_LEARN.matches("alice", Category.LEARN));
+        assertFalse(ALICE_LEARN.matches("alice", Category.HOBBY));
+        assertEquals(ALICE, TodoResultCache.Key.of("alice", Collections.emptySet(), "getAllTodos"));
+    }
+
+    @Test
+    @DisplayName("Test - When a todo changes only the entries matching its personId and category should be evicted")
+    public void testTargetedInvalidation() {
+        todoResultCache.onOpen();
+        putAll();
+
+        todoResultCache.onChange(change(OperationType.INSERT, todo("alice", Category.HOBBY), null));
+
+        assertNull(todoResultCache.getIfPresent(ALL));
+        assertNull(todoResultCache.getIfPresent(ALICE));
+        assertEquals("alice-learn", todoResultCache.getIfPresent(ALICE_LEARN));
+        assertEquals("bob", todoResultCache.getIfPresent(BOB));
+    }
+
+    @Test
+    @DisplayName("Test - When personId or category of a todo is updated every entry should be evicted")
+    public void testInvalidationOfChangedKeys() {
+        todoResultCache.onOpen();
+        putAll();
+
+        todoResultCache.onChange(change(OperationType.UPDATE, todo("alice", Category.HOBBY),
+                new UpdateDescription(null, new BsonDocument("personId", new BsonString("alice")))));
+
+        assertNull(todoResultCache.getIfPresent(BOB));
+        assertNull(todoResultCache.getIfPresent(ALICE_LEARN));
+    }
+
+    @Test
+    @DisplayName("Test - When an invalidation happens after the generation was read the result should not be cached")
+    public void testStalePutIgnored() {
+        todoResultCache.onOpen();
+        long generation = todoResultCache.generation();
+
+        todoResultCache.onChange(change(OperationType.DELETE, null, null));
+        todoResultCache.put(ALL, "stale", generation);
+
+        assertNull(todoResultCache.getIfPresent(ALL));
+        todoResultCache.put(ALL, "fresh", todoResultCache.generation());
+        assertEquals("fresh", todoResultCache.getIfPresent(ALL));
+    }
+
+    @Test
+    @DisplayName("Test - When the change stream is closed the cache should be cleared and bypassed until reopened")
+    public void testBypassWhileClosed() {
+        todoResultCache.put(ALL, "before-open", todoResultCache.generation());
+        assertNull(todoResultCache.getIfPresent(ALL));
+
+        todoResultCache.onOpen();
+        todoResultCache.put(ALL, "open", todoResultCache.generation());
+        assertEquals("open", todoResultCache.getIfPresent(ALL));
+
+        todoResultCache.onClose();
+        assertNull(todoResultCache.getIfPresent(ALL));
+        todoResultCache.put(ALL, "closed", todoResultCache.generation());
+
+        todoResultCache.onOpen();
+        assertNull(todoResultCache.getIfPresent(ALL));
+    }
+
+    private void putAll() {
+        long generation = todoResultCache.generation();
+        todoResultCache.put(ALL, "all", generation);
+        todoResultCache.put(ALICE, "alice", generation);
+        todoResultCache.put(ALICE_LEARN, "alice-learn", generation);
+        todoResultCache.put(BOB, "bob", generation);
+    }
+
+    private static TodoDto todo(String personId, Category category) {
+        TodoDto todo = new TodoDto();
+        todo.setPersonId(personId);
+        todo.setCategory(category);
+        return todo;
+    }
+
+    private static ChangeStreamDocument<TodoDto> change(OperationType operationType, TodoDto todo, UpdateDescription updateDescription) {
+        return new ChangeStreamDocument<>(operationType, null, null, null, todo,
+                new BsonDocument("_id", new BsonObjectId(new ObjectId())), null, updateDescription, null, null);
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.todo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class TodoWriteBehindTest {
+    private final List<List<Todo>> inserts = new CopyOnWriteArrayList<>();
+
+    private TodoWriteBehind todoWriteBehind;
+
+    @AfterEach
+    public void tearDown() {
+        if (todoWriteBehind != null) {
+            todoWriteBehind.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Test - When batchSize todos are queued they should be inserted in one batch without waiting for the interval")
+    public void testBatching() throws Exception {
+        todoWriteBehind = writeBehind(3, TimeUnit.MINUTES.toMillis(1), 100);
+
+        List<CompletableFuture<Todo>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(todoWriteBehind.enqueue(new Todo()).toCompletableFuture());
+        }
+
+        for (CompletableFuture<Todo> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).id != null);
+        }
+        assertEquals(1, inserts.size());
+        assertEquals(3, inserts.get(0).size());
+        Mockito.verify(todoWriteBehind.todoCategoryCounters).onCreated(inserts.get(0));
+    }
+
+    @Test
+    @DisplayName("Test - When fewer than batchSize todos are queued they should be inserted after flushIntervalMillis")
+    public void testFlushAfterInterval() throws Exception {
+        todoWriteBehind = writeBehind(100, 10, 100);
+
+        Todo todo = new Todo();
+        assertSame(todo, todoWriteBehind.enqueue(todo).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(Collections.singletonList(todo)), inserts);
+    }
+
+    @Test
+    @DisplayName("Test - When the queue is full enqueue should be rejected and create should return 503")
+    public void testRejection() throws Exception {
+        todoWriteBehind = writeBehind(100, TimeUnit.MINUTES.toMillis(1), 1);
+
+        CompletableFuture<Todo> queued = todoWriteBehind.enqueue(new Todo()).toCompletableFuture();
+        CompletableFuture<Todo> rejected = todoWriteBehind.enqueue(new Todo()).toCompletableFuture();
+
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertFalse(queued.isDone());
+
+        Response response = todoResource(todoWriteBehind).create(new TodoDto()).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Test - When the application stops the queued todos should be inserted before the flusher exits")
+    public void testShutdownDrain() throws Exception {
+        todoWriteBehind = writeBehind(2, TimeUnit.MINUTES.toMillis(1), 100);
+
+        CompletableFuture<Todo> first = todoWriteBehind.enqueue(new Todo()).toCompletableFuture();
+        assertFalse(first.isDone());
+
+        todoWriteBehind.destroy();
+
+        assertTrue(first.isDone());
+        assertEquals(1, inserts.size());
+        assertSame(first.get(), inserts.get(0).get(0));
+    }
+
+    @Test
+    @DisplayName("Test - When the application has stopped enqueue should be rejected at once and create should return 503")
+    public void testEnqueueAfterShutdown() throws Exception {
+        todoWriteBehind = writeBehind(100, TimeUnit.MINUTES.toMillis(1), 100);
+        todoWriteBehind.destroy();
+
+        CompletableFuture<Todo> rejected = todoWriteBehind.enqueue(new Todo()).toCompletableFuture();
+
+        assertTrue(rejected.isDone());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(inserts.isEmpty());
+
+        Response response = todoResource(todoWriteBehind).create(new TodoDto()).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+    }
+
+    private TodoWriteBehind writeBehind(int batchSize, long flushIntervalMillis, int maxQueueSize) {
+        TodoWriteBehind writeBehind = new TodoWriteBehind() {
+            @Override
+            void insert(List<Todo> todos) {
+                inserts.add(new ArrayList<>(todos));
+            }
+        };
+        writeBehind.enabled = true;
+        writeBehind.batchSize = batchSize;
+        writeBehind.flushIntervalMillis = flushIntervalMillis;
+        writeBehind.maxQueueSize = maxQueueSize;
+        writeBehind.todoCategoryCounters = Mockito.spy(new TodoCategoryCounters());
+        writeBehind.metricRegistry = Mockito.mock(MetricRegistry.class, Mockito.RETURNS_MOCKS);
+        writeBehind.init();
+        return writeBehind;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TodoResource todoResource(TodoWriteBehind todoWriteBehind) {
+        TodoResource todoResource = new TodoResource();
+        todoResource.todoWriteBehind = todoWriteBehind;
+        todoResource.todoMapper = Mockito.mock(TodoResource.TodoMapper.class);
+        Mockito.when(todoResource.todoMapper.toModel(any())).thenAnswer(invocation -> new Todo());
+        todoResource.jwt = Mockito.mock(JsonWebToken.class);
+        todoResource.personNameResolver = Mockito.mock(PersonNameResolver.class);
+        Mockito.when(todoResource.personNameResolver.resolve(anyCollection(), anyString())).thenReturn(Collections.emptyMap());
+        todoResource.todoMetrics = Mockito.mock(TodoMetrics.class);
+        Mockito.when(todoResource.todoMetrics.time(anyString(), anyString(), any()))
+                .thenAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(2)).get());
+        return todoResource;
+    }
+}
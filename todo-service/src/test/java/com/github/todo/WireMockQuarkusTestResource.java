@@ -43,6 +43,13 @@ public class WireMockQuarkusTestResource implements QuarkusTestResourceLifecycle
 		return Collections.emptyMap();
 	}
 
+	/**
+	 * @return the running server, for tests that stub single persons or verify calls
+	 */
+	static WireMockServer getWireMockServer() {
+		return wireMockServer;
+	}
+
 	@Override
 	public void stop() {
 		if (wireMockServer != null) {